@@ -0,0 +1,20 @@
+package io.github.vatisteve.dataretriever;
+
+/**
+ * Receives the batches of a {@link DataRetriever}, in order and one at a time
+ * <br />
+ * The sink should not keep the batch if the memory usage matters
+ *
+ * @param <B> Type of the batches
+ */
+@FunctionalInterface
+public interface BatchSink<B> {
+
+    void onBatch(B batch);
+
+    /**
+     * Called once after the last batch has been delivered
+     */
+    default void onComplete() {}
+
+}
@@ -0,0 +1,21 @@
+package io.github.vatisteve.dataretriever;
+
+import java.io.Serial;
+
+/**
+ * Failure of a {@link DataRetriever}, the data source specific exceptions extend it
+ */
+public class DataRetrieveException extends RuntimeException {
+
+    public DataRetrieveException(String message) {
+        super(message);
+    }
+
+    public DataRetrieveException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    @Serial
+    private static final long serialVersionUID = 4316273405618112940L;
+
+}
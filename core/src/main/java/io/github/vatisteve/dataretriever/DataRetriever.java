@@ -0,0 +1,22 @@
+package io.github.vatisteve.dataretriever;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of data streamed batch by batch into a {@link BatchSink}, whatever the kind of data source (SeaTable base,
+ * JDBC database, ...)
+ * <br />
+ * The batches are delivered in order, one at a time: the next batch is not requested before the sink has returned,
+ * so a slow sink slows the retrieval down instead of piling the batches up in memory
+ *
+ * @param <B> Type of the batches
+ */
+public interface DataRetriever<B> {
+
+    /**
+     * @return Future of the number of delivered rows, completed after {@link BatchSink#onComplete()}. A failure is
+     * a {@link DataRetrieveException} (wrapped in a {@link java.util.concurrent.CompletionException} when joined)
+     */
+    CompletableFuture<Long> streamData(BatchSink<B> sink);
+
+}
@@ -0,0 +1,177 @@
+package io.github.vatisteve.dataretriever.jdbc;
+
+import io.github.vatisteve.dataretriever.BatchSink;
+import io.github.vatisteve.dataretriever.DataRetrieveException;
+import io.github.vatisteve.dataretriever.DataRetriever;
+import io.github.vatisteve.dataretriever.jdbc.enums.JdbcDialect;
+import io.github.vatisteve.dataretriever.jdbc.model.connection.JdbcConnection;
+import io.github.vatisteve.dataretriever.jdbc.model.metadata.JdbcColumn;
+import io.github.vatisteve.dataretriever.jdbc.model.result.JdbcRowBatch;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Serial;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Stream the result of a query through a server-side cursor, in typed batches of {@link JdbcConnection#getBatchSize()} rows
+ * <br />
+ * The rows are read on a thread of the executor (virtual threads by default) which also delivers the batches: the
+ * cursor isn't moved while the sink handles a batch, so the memory usage is bounded by about one batch and one fetch
+ * whatever the result size. Cancelling the future cancels the statement
+ */
+@Slf4j
+@Getter
+public class JdbcRetriever implements DataRetriever<JdbcRowBatch> {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    /**
+     * Fetch size of the first round trip when it is estimated, before the row size is known
+     */
+    static final int DEFAULT_FETCH_SIZE = 1000;
+    /**
+     * Target size of a round trip when the fetch size is estimated
+     */
+    static final long FETCH_BYTES = 4L << 20;
+    static final int MIN_FETCH_SIZE = 100;
+    static final int MAX_FETCH_SIZE = 50_000;
+    private static final Executor VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final JdbcConnection connectionInfo;
+    private final JdbcDialect dialect;
+    @Getter(AccessLevel.NONE)
+    private final Executor executor;
+
+    public JdbcRetriever(JdbcConnection connectionInfo) {
+        this(connectionInfo, null);
+    }
+
+    /**
+     * @param executor  Runs the blocking JDBC calls, a virtual thread per retrieval if {@code null}
+     */
+    public JdbcRetriever(JdbcConnection connectionInfo, Executor executor) {
+        this.connectionInfo = connectionInfo;
+        this.dialect = JdbcDialect.of(connectionInfo.getUrl());
+        this.executor = executor == null ? VIRTUAL_THREADS : executor;
+    }
+
+    @Override
+    public CompletableFuture<Long> streamData(BatchSink<JdbcRowBatch> sink) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(retrieve(sink, result));
+                } catch (SQLException e) {
+                    log.error("Error occurred when querying {}: {}", connectionInfo.getUrl(), e.getMessage());
+                    result.completeExceptionally(new JdbcRetrieveException(e));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new DataRetrieveException("JDBC retrieval rejected by the executor", e));
+        }
+        return result;
+    }
+
+    /**
+     * @param result    Future of the retrieval, the rows are no longer read once it is completed (cancelled or timed out)
+     */
+    private long retrieve(BatchSink<JdbcRowBatch> sink, CompletableFuture<Long> result) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(connectionInfo.getUrl(), properties());
+             PreparedStatement statement = connection.prepareStatement(connectionInfo.getQuery(),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            dialect.prepare(connection);
+            boolean estimated = connectionInfo.getFetchSize() <= 0;
+            int fetchSize = dialect.fetchSize(connectionInfo.getUrl(), estimated ? DEFAULT_FETCH_SIZE : connectionInfo.getFetchSize());
+            statement.setFetchSize(fetchSize);
+            if (connectionInfo.getQueryTimeout() != null) {
+                statement.setQueryTimeout((int) Math.max(connectionInfo.getQueryTimeout().toSeconds(), 1));
+            }
+            List<Object> parameters = connectionInfo.getParameters() == null ? List.of() : connectionInfo.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            result.whenComplete((count, e) -> {
+                if (result.isCancelled()) cancel(statement);
+            });
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<JdbcColumn> columns = JdbcColumn.of(resultSet.getMetaData());
+                int batchSize = connectionInfo.getBatchSize() > 0 ? connectionInfo.getBatchSize() : DEFAULT_BATCH_SIZE;
+                log.debug("Querying {} columns by batches of {} rows, fetch size {}", columns.size(), batchSize, fetchSize);
+                long count = 0;
+                JdbcRowBatch batch = new JdbcRowBatch(columns, batchSize);
+                while (resultSet.next()) {
+                    batch.append(resultSet);
+                    if (batch.getRowCount() < batchSize) continue;
+                    if (estimated && count == 0 && fetchSize > 0) tuneFetchSize(resultSet, batch);
+                    sink.onBatch(batch);
+                    count += batch.getRowCount();
+                    if (result.isDone()) return count;
+                    batch = new JdbcRowBatch(columns, batchSize);
+                }
+                if (batch.getRowCount() > 0) {
+                    sink.onBatch(batch);
+                    count += batch.getRowCount();
+                }
+                sink.onComplete();
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Fetch about {@link #FETCH_BYTES} per round trip, from the row size of the first batch
+     */
+    private void tuneFetchSize(ResultSet resultSet, JdbcRowBatch batch) throws SQLException {
+        long rowBytes = Math.max(batch.bytes() / batch.getRowCount(), 1);
+        int fetchSize = Math.clamp(FETCH_BYTES / rowBytes, MIN_FETCH_SIZE, MAX_FETCH_SIZE);
+        log.debug("Rows of about {} bytes, fetch size {}", rowBytes, fetchSize);
+        resultSet.setFetchSize(fetchSize);
+    }
+
+    private Properties properties() {
+        Properties properties = new Properties();
+        if (connectionInfo.getProperties() != null) properties.putAll(connectionInfo.getProperties());
+        if (connectionInfo.getUsername() != null) properties.setProperty("user", connectionInfo.getUsername());
+        if (connectionInfo.getPassword() != null) properties.setProperty("password", connectionInfo.getPassword());
+        return properties;
+    }
+
+    private static void cancel(PreparedStatement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            log.debug("Statement not cancelled: {}", e.getMessage());
+        }
+    }
+
+    public static class JdbcRetrieveException extends DataRetrieveException {
+        /**
+         * SQL state of the database error, {@code null} if unknown
+         */
+        private final String sqlState;
+        public JdbcRetrieveException(SQLException cause) {
+            super("Error querying the database: " + cause.getMessage(), cause);
+            this.sqlState = cause.getSQLState();
+        }
+        public String getSqlState() {
+            return sqlState;
+        }
+        @Serial
+        private static final long serialVersionUID = 6230411457286815703L;
+    }
+
+}
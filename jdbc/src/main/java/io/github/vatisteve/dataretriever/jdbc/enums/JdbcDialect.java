@@ -0,0 +1,53 @@
+package io.github.vatisteve.dataretriever.jdbc.enums;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * How each database streams a result set through a server-side cursor instead of loading it whole into the driver
+ */
+public enum JdbcDialect {
+    /**
+     * The cursor is only used inside a transaction, with a positive fetch size
+     */
+    POSTGRES("jdbc:postgresql:"),
+    /**
+     * Connector/J 3 fetches the rows by the fetch size
+     */
+    MARIADB("jdbc:mariadb:"),
+    /**
+     * Connector/J streams the rows one by one with the fetch size {@link Integer#MIN_VALUE}, unless the cursor fetch
+     * is enabled ({@code useCursorFetch=true})
+     */
+    MYSQL("jdbc:mysql:"),
+    GENERIC(null);
+
+    private final String urlPrefix;
+
+    JdbcDialect(String urlPrefix) {
+        this.urlPrefix = urlPrefix;
+    }
+
+    public static JdbcDialect of(String url) {
+        for (JdbcDialect dialect : values()) {
+            if (dialect.urlPrefix != null && url.startsWith(dialect.urlPrefix)) return dialect;
+        }
+        return GENERIC;
+    }
+
+    /**
+     * Set up the connection before the statement is executed
+     */
+    public void prepare(Connection connection) throws SQLException {
+        if (this == POSTGRES) connection.setAutoCommit(false);
+    }
+
+    /**
+     * Fetch size of the statement to get the rows by {@code fetchSize}, or streamed if the driver doesn't support it
+     */
+    public int fetchSize(String url, int fetchSize) {
+        if (this == MYSQL && !url.contains("useCursorFetch=true")) return Integer.MIN_VALUE;
+        return fetchSize;
+    }
+
+}
@@ -0,0 +1,41 @@
+package io.github.vatisteve.dataretriever.jdbc.model.connection;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JdbcConnection {
+    private String url;
+    private String username;
+    private String password;
+    /**
+     * Other properties of the driver, merged with the user and password
+     */
+    private Properties properties;
+    private String query;
+    /**
+     * Values of the {@code ?} placeholders of the query, in order
+     */
+    private List<Object> parameters;
+    /**
+     * Rows per round trip of the cursor, {@code 0} to estimate it from the column sizes of the result
+     */
+    private int fetchSize;
+    /**
+     * Rows per batch delivered to the sink, {@link io.github.vatisteve.dataretriever.jdbc.JdbcRetriever#DEFAULT_BATCH_SIZE} by default
+     */
+    private int batchSize;
+    /**
+     * Timeout of the statement execution, none if {@code null}
+     */
+    private Duration queryTimeout;
+}
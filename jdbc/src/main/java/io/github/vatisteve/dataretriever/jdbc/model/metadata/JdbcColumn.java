@@ -0,0 +1,26 @@
+package io.github.vatisteve.dataretriever.jdbc.model.metadata;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @param name          Label of the column in the result
+ * @param sqlType       Type of the column, one of {@link java.sql.Types}
+ * @param typeName      Type name of the database
+ * @param displaySize   Max width in characters, the size estimates are based on it
+ * @param nullable      Whether the column may contain {@code NULL}
+ */
+public record JdbcColumn(String name, int sqlType, String typeName, int displaySize, boolean nullable) {
+
+    public static List<JdbcColumn> of(ResultSetMetaData metadata) throws SQLException {
+        List<JdbcColumn> columns = new ArrayList<>(metadata.getColumnCount());
+        for (int i = 1; i <= metadata.getColumnCount(); i++) {
+            columns.add(new JdbcColumn(metadata.getColumnLabel(i), metadata.getColumnType(i), metadata.getColumnTypeName(i),
+                    metadata.getColumnDisplaySize(i), metadata.isNullable(i) != ResultSetMetaData.columnNoNulls));
+        }
+        return List.copyOf(columns);
+    }
+
+}
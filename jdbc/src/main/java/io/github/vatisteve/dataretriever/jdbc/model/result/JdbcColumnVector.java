@@ -0,0 +1,229 @@
+package io.github.vatisteve.dataretriever.jdbc.model.result;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.BitSet;
+
+/**
+ * Values of one column of a batch stored by type: primitive arrays for numbers, bitsets for booleans and objects for
+ * the other values. Nulls are tracked in a bitset, the capacity is the batch size
+ */
+public sealed interface JdbcColumnVector {
+
+    /**
+     * Vector of the values of a {@link Types SQL type}
+     */
+    static JdbcColumnVector of(int sqlType, int capacity) {
+        return switch (sqlType) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> new LongVector(capacity);
+            case Types.DOUBLE, Types.FLOAT, Types.REAL -> new DoubleVector(capacity);
+            case Types.BOOLEAN, Types.BIT -> new BooleanVector(capacity);
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR,
+                 Types.CLOB, Types.NCLOB -> new StringVector(capacity);
+            default -> new ObjectVector(capacity);
+        };
+    }
+
+    /**
+     * Read the value of the current row of the result set
+     * @param column    Index of the column in the result set, from {@code 1}
+     */
+    void read(ResultSet resultSet, int column, int row) throws SQLException;
+
+    boolean isNull(int row);
+
+    /**
+     * Value boxed as returned by {@link ResultSet#getObject(int)}, {@code null} for a {@code NULL}
+     */
+    Object get(int row);
+
+    /**
+     * Rough heap size of the values
+     */
+    long bytes();
+
+    final class LongVector implements JdbcColumnVector {
+        private final long[] values;
+        private final BitSet nulls = new BitSet();
+
+        LongVector(int capacity) {
+            values = new long[capacity];
+        }
+
+        @Override
+        public void read(ResultSet resultSet, int column, int row) throws SQLException {
+            values[row] = resultSet.getLong(column);
+            if (resultSet.wasNull()) nulls.set(row);
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        /**
+         * Direct access to the values, the null cells contain {@code 0}
+         */
+        public long[] values() {
+            return values;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public long bytes() {
+            return 8L * values.length;
+        }
+    }
+
+    final class DoubleVector implements JdbcColumnVector {
+        private final double[] values;
+        private final BitSet nulls = new BitSet();
+
+        DoubleVector(int capacity) {
+            values = new double[capacity];
+        }
+
+        @Override
+        public void read(ResultSet resultSet, int column, int row) throws SQLException {
+            values[row] = resultSet.getDouble(column);
+            if (resultSet.wasNull()) nulls.set(row);
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        /**
+         * Direct access to the values, the null cells contain {@code 0}
+         */
+        public double[] values() {
+            return values;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public long bytes() {
+            return 8L * values.length;
+        }
+    }
+
+    final class BooleanVector implements JdbcColumnVector {
+        private final BitSet values = new BitSet();
+        private final BitSet nulls = new BitSet();
+        private final int capacity;
+
+        BooleanVector(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if (resultSet.getBoolean(column)) values.set(row);
+            if (resultSet.wasNull()) nulls.set(row);
+        }
+
+        public boolean getBoolean(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values.get(row);
+        }
+
+        @Override
+        public long bytes() {
+            return capacity / 4;
+        }
+    }
+
+    final class StringVector implements JdbcColumnVector {
+        private final String[] values;
+        private long bytes;
+
+        StringVector(int capacity) {
+            values = new String[capacity];
+        }
+
+        @Override
+        public void read(ResultSet resultSet, int column, int row) throws SQLException {
+            String value = resultSet.getString(column);
+            values[row] = value;
+            if (value != null) bytes += 40 + value.length();
+        }
+
+        public String getString(int row) {
+            return values[row];
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return values[row] == null;
+        }
+
+        @Override
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long bytes() {
+            return 8L * values.length + bytes;
+        }
+    }
+
+    /**
+     * Decimals, dates, times, binaries and the other types, as the driver maps them
+     */
+    final class ObjectVector implements JdbcColumnVector {
+        private final Object[] values;
+
+        ObjectVector(int capacity) {
+            values = new Object[capacity];
+        }
+
+        @Override
+        public void read(ResultSet resultSet, int column, int row) throws SQLException {
+            values[row] = resultSet.getObject(column);
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return values[row] == null;
+        }
+
+        @Override
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long bytes() {
+            return 24L * values.length;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package io.github.vatisteve.dataretriever.jdbc.model.result;
+
+import io.github.vatisteve.dataretriever.jdbc.model.metadata.JdbcColumn;
+import lombok.Getter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Rows of a result set stored as one {@link JdbcColumnVector} per column, the vector type is chosen by the
+ * {@link JdbcColumn#sqlType()}
+ * <br />
+ * The typed getters throw a {@link ClassCastException} if the column is stored in another type of vector
+ */
+public class JdbcRowBatch {
+
+    @Getter
+    private final List<JdbcColumn> columns;
+    private final JdbcColumnVector[] vectors;
+    @Getter
+    private int rowCount;
+
+    public JdbcRowBatch(List<JdbcColumn> columns, int capacity) {
+        this.columns = columns;
+        this.vectors = new JdbcColumnVector[columns.size()];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = JdbcColumnVector.of(columns.get(i).sqlType(), capacity);
+        }
+    }
+
+    /**
+     * Append the current row of the result set
+     */
+    public void append(ResultSet resultSet) throws SQLException {
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].read(resultSet, i + 1, rowCount);
+        }
+        rowCount++;
+    }
+
+    public JdbcColumnVector vector(int column) {
+        return vectors[column];
+    }
+
+    public boolean isNull(int row, int column) {
+        return vectors[column].isNull(row);
+    }
+
+    public Object getObject(int row, int column) {
+        return vectors[column].get(row);
+    }
+
+    public long getLong(int row, int column) {
+        return ((JdbcColumnVector.LongVector) vectors[column]).getLong(row);
+    }
+
+    public double getDouble(int row, int column) {
+        return ((JdbcColumnVector.DoubleVector) vectors[column]).getDouble(row);
+    }
+
+    public boolean getBoolean(int row, int column) {
+        return ((JdbcColumnVector.BooleanVector) vectors[column]).getBoolean(row);
+    }
+
+    public String getString(int row, int column) {
+        return ((JdbcColumnVector.StringVector) vectors[column]).getString(row);
+    }
+
+    /**
+     * Rough heap size of the batch
+     */
+    public long bytes() {
+        long bytes = 0;
+        for (JdbcColumnVector vector : vectors) bytes += vector.bytes();
+        return bytes;
+    }
+
+}
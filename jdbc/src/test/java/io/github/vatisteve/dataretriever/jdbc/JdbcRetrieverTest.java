@@ -0,0 +1,101 @@
+package io.github.vatisteve.dataretriever.jdbc;
+
+import io.github.vatisteve.dataretriever.jdbc.model.connection.JdbcConnection;
+import io.github.vatisteve.dataretriever.jdbc.model.metadata.JdbcColumn;
+import io.github.vatisteve.dataretriever.jdbc.model.result.JdbcColumnVector;
+import io.github.vatisteve.dataretriever.jdbc.model.result.JdbcRowBatch;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcRetrieverTest {
+
+    private static final String URL = "jdbc:h2:mem:retriever;DB_CLOSE_DELAY=-1";
+
+    @BeforeAll
+    static void beforeAll() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (id BIGINT PRIMARY KEY, price DOUBLE PRECISION, name VARCHAR(64), active BOOLEAN, created DATE)");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO item VALUES (?, ?, ?, ?, DATE '2024-07-26')")) {
+                for (int i = 0; i < 2500; i++) {
+                    insert.setLong(1, i);
+                    insert.setDouble(2, i * 1.5);
+                    insert.setString(3, i % 10 == 0 ? null : "item " + i);
+                    insert.setBoolean(4, i % 2 == 0);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Stream the result in typed batches")
+    void streamData() {
+        JdbcConnection connection = JdbcConnection.builder()
+                .url(URL)
+                .query("SELECT id, price, name, active, created FROM item WHERE id >= ? ORDER BY id")
+                .parameters(List.of(100))
+                .build();
+        List<JdbcRowBatch> batches = new CopyOnWriteArrayList<>();
+        assertEquals(2400, new JdbcRetriever(connection).streamData(batches::add).join());
+        assertEquals(List.of(1000, 1000, 400), batches.stream().map(JdbcRowBatch::getRowCount).toList());
+        JdbcRowBatch batch = batches.get(1);
+        assertEquals(List.of("ID", "PRICE", "NAME", "ACTIVE", "CREATED"), batch.getColumns().stream().map(JdbcColumn::name).toList());
+        assertInstanceOf(JdbcColumnVector.LongVector.class, batch.vector(0));
+        assertEquals(1105, batch.getLong(5, 0));
+        assertEquals(1105 * 1.5, batch.getDouble(5, 1));
+        assertEquals("item 1105", batch.getString(5, 2));
+        assertFalse(batch.getBoolean(5, 3));
+        assertTrue(batch.isNull(0, 2));
+        assertEquals("2024-07-26", batch.getObject(5, 4).toString());
+    }
+
+    @Test
+    @DisplayName("Stop reading the rows once the retrieval is cancelled")
+    void cancelRetrieval() {
+        JdbcConnection connection = JdbcConnection.builder()
+                .url(URL)
+                .query("SELECT id FROM item ORDER BY id")
+                .fetchSize(200)
+                .batchSize(500)
+                .build();
+        AtomicReference<CompletableFuture<Long>> future = new AtomicReference<>();
+        List<JdbcRowBatch> batches = new CopyOnWriteArrayList<>();
+        future.set(new JdbcRetriever(connection).streamData(batch -> {
+            batches.add(batch);
+            while (future.get() == null) Thread.onSpinWait();
+            future.get().cancel(true);
+        }));
+        assertThrows(CancellationException.class, () -> future.get().join());
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    @DisplayName("Fail with the SQL state of the database error")
+    void queryError() {
+        JdbcConnection connection = JdbcConnection.builder()
+                .url(URL)
+                .query("SELECT missing FROM item")
+                .build();
+        CompletionException e = assertThrows(CompletionException.class, () -> new JdbcRetriever(connection).streamData(batch -> {}).join());
+        JdbcRetriever.JdbcRetrieveException cause = assertInstanceOf(JdbcRetriever.JdbcRetrieveException.class, e.getCause());
+        assertEquals("42S22", cause.getSqlState());
+    }
+
+}
@@ -0,0 +1,219 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in of a SeaTable server for the benchmarks: base token, list rows (4.4 and before), columns and SQL
+ * <br />
+ * The rows are synthetic and rendered once, {@code columns} columns of mixed types (number, text, checkbox, multiple
+ * select and empty cells) after the SeaTable properties. Every response is delayed by {@code latencyMillis} and every
+ * {@code throttleEvery}-th request of rows is answered with {@code 429 Too Many Requests}
+ */
+public final class STBenchmarkServer implements AutoCloseable {
+
+    static final String BASE_UUID = "benchmark-base-uuid";
+    private static final Pattern OFFSET = Pattern.compile("OFFSET (\\d+)");
+    private static final Pattern LIMIT = Pattern.compile("LIMIT (\\d+)");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int columns;
+    private final long latencyMillis;
+    private final int throttleEvery;
+    /**
+     * JSON of the rows with all cells, and without the empty ones as a SeaTable server before 4.4
+     */
+    private final byte[][] rows;
+    private final byte[][] sparseRows;
+    @Getter
+    private final AtomicInteger requests = new AtomicInteger();
+
+    public STBenchmarkServer(int rowCount, int columns, long latencyMillis, int throttleEvery) throws IOException {
+        this.columns = columns;
+        this.latencyMillis = latencyMillis;
+        this.throttleEvery = throttleEvery;
+        rows = new byte[rowCount][];
+        sparseRows = new byte[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = row(i, columns, false).getBytes(StandardCharsets.UTF_8);
+            sparseRows[i] = row(i, columns, true).getBytes(StandardCharsets.UTF_8);
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/v2.1/dtable/app-access-token/", exchange -> respond(exchange, 200,
+                "{\"access_token\":\"benchmark-token\",\"dtable_uuid\":\"" + BASE_UUID + "\",\"dtable_name\":\"benchmark\"}"));
+        server.createContext("/api-gateway/api/v2/dtables/" + BASE_UUID + "/rows/", exchange -> rows(exchange, this.rows));
+        server.createContext("/api-gateway/api/v2/dtables/" + BASE_UUID + "/columns/", this::columns);
+        server.createContext("/api-gateway/api/v2/dtables/" + BASE_UUID + "/sql", this::sql);
+        server.createContext("/dtable-server/api/v1/dtables/" + BASE_UUID + "/rows/", exchange -> rows(exchange, sparseRows));
+        server.createContext("/dtable-server/api/v1/dtables/" + BASE_UUID + "/columns/", this::columns);
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    /**
+     * Response of the list rows api
+     */
+    byte[] rowsResponse(int start, int limit, boolean sparse) {
+        return page("{\"rows\":[", sparse ? sparseRows : rows, start, limit);
+    }
+
+    /**
+     * Response of the SQL api, a join statement has its rows keyed by the column keys and described by the metadata
+     */
+    byte[] sqlResponse(int start, int limit, boolean join) {
+        if (!join) return page("{\"success\":true,\"is_join_stmt\":false,\"results\":[", rows, start, limit);
+        StringBuilder metadata = new StringBuilder("{\"success\":true,\"is_join_stmt\":true,\"metadata\":[");
+        metadata.append("{\"id\":\"_id\",\"name\":\"_id\",\"table_name\":\"Table1\",\"type\":\"text\"}");
+        for (int c = 0; c < columns; c++) {
+            metadata.append(",{\"id\":\"k").append(c).append("\",\"name\":\"col").append(c)
+                    .append("\",\"table_name\":\"").append(c % 2 == 0 ? "Table1" : "Table2").append("\",\"type\":\"").append(type(c)).append("\"}");
+        }
+        StringBuilder body = metadata.append("],\"results\":[");
+        for (int i = start; i < Math.min(start + limit, rows.length); i++) {
+            if (i > start) body.append(',');
+            body.append("{\"_id\":\"").append(rowId(i)).append('"');
+            for (int c = 0; c < columns; c++) {
+                body.append(",\"k").append(c).append("\":").append(value(i, c));
+            }
+            body.append('}');
+        }
+        return body.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void rows(HttpExchange exchange, byte[][] source) throws IOException {
+        int request = requests.incrementAndGet();
+        if (throttleEvery > 0 && request % throttleEvery == 0) {
+            exchange.getResponseHeaders().add("Retry-After", "0");
+            respond(exchange, 429, "{\"error_message\":\"Too many requests\"}");
+            return;
+        }
+        String query = exchange.getRequestURI().getRawQuery();
+        int start = intParameter(query, "start", 0);
+        int limit = intParameter(query, "limit", 1000);
+        respond(exchange, 200, page("{\"rows\":[", source, start, limit));
+    }
+
+    /**
+     * Understands {@code LIMIT n} and {@code OFFSET m}, the other clauses are ignored
+     */
+    private void sql(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String sql;
+        try (InputStream in = exchange.getRequestBody()) {
+            sql = new ObjectMapper().readTree(in).get("sql").asText();
+        }
+        Matcher offset = OFFSET.matcher(sql);
+        Matcher limit = LIMIT.matcher(sql);
+        respond(exchange, 200, sqlResponse(offset.find() ? Integer.parseInt(offset.group(1)) : 0,
+                limit.find() ? Integer.parseInt(limit.group(1)) : 100, sql.contains(" JOIN ")));
+    }
+
+    private void columns(HttpExchange exchange) throws IOException {
+        StringBuilder body = new StringBuilder("{\"columns\":[");
+        for (int c = 0; c < columns; c++) {
+            if (c > 0) body.append(',');
+            body.append("{\"key\":\"k").append(c).append("\",\"type\":\"").append(type(c)).append("\",\"name\":\"col").append(c)
+                    .append("\",\"data\":null}");
+        }
+        respond(exchange, 200, body.append("]}").toString());
+    }
+
+    private static byte[] page(String prefix, byte[][] source, int start, int limit) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(prefix.getBytes(StandardCharsets.UTF_8));
+        for (int i = start; i < Math.min(start + limit, source.length); i++) {
+            if (i > start) body.write(',');
+            body.writeBytes(source[i]);
+        }
+        body.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    private static String row(int i, int columns, boolean sparse) {
+        StringBuilder row = new StringBuilder("{\"_id\":\"").append(rowId(i))
+                .append("\",\"_mtime\":\"2024-07-26T00:00:00.000+00:00\",\"_ctime\":\"2024-07-26T00:00:00.000+00:00\"")
+                .append(",\"_creator\":\"benchmark@auth.local\",\"_last_modifier\":\"benchmark@auth.local\",\"_locked\":null");
+        for (int c = 0; c < columns; c++) {
+            String value = value(i, c);
+            if (sparse && "null".equals(value)) continue;
+            row.append(",\"col").append(c).append("\":").append(value);
+        }
+        return row.append('}').toString();
+    }
+
+    private static String type(int column) {
+        return switch (column % 5) {
+            case 0 -> "number";
+            case 1, 4 -> "text";
+            case 2 -> "checkbox";
+            default -> "multiple-select";
+        };
+    }
+
+    private static String value(int row, int column) {
+        return switch (column % 5) {
+            case 0 -> Double.toString(row * 1.5 + column);
+            case 1 -> "\"value " + row + " of column " + column + "\"";
+            case 2 -> row % 2 == 0 ? "true" : "false";
+            case 3 -> "[\"option " + row % 7 + "\",\"option " + column % 3 + "\"]";
+            default -> "null";
+        };
+    }
+
+    private static String rowId(int i) {
+        return String.format("row%06d", i);
+    }
+
+    private static int intParameter(String query, String name, int defaultValue) {
+        if (query == null) return defaultValue;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) return Integer.parseInt(pair.substring(name.length() + 1));
+        }
+        return defaultValue;
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STRateLimit;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole extraction of a table from the in-process server: paging, http, parsing and the transform of
+ * {@link STConnector#getData()}, or the streaming of the pages
+ * <br />
+ * The request budget is lifted so that only the server latency and the injected {@code 429} slow the requests down,
+ * e.g. {@code -p latencyMillis=20 -p throttleEvery=10} for a remote server under load
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class STExtractBenchmark {
+
+    @Param({"10000"})
+    int rows;
+    @Param({"10", "80"})
+    int columns;
+    @Param({"0"})
+    long latencyMillis;
+    @Param({"0"})
+    int throttleEvery;
+    @Param({"1", "4"})
+    int parallelism;
+
+    private STBenchmarkServer server;
+    private STTableNameQuery query;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        server = new STBenchmarkServer(rows, columns, latencyMillis, throttleEvery);
+        query = new STTableNameQuery(STTableNameConnection.builder()
+                .url(server.url())
+                .apiKey("benchmark")
+                .version(STVersion.FROM_4_4)
+                .tableName("Table1")
+                .parallelism(parallelism)
+                .rateLimit(STRateLimit.builder()
+                        .requestsPerMinutePerBase(Integer.MAX_VALUE)
+                        .requestsPerMinutePerToken(Integer.MAX_VALUE)
+                        .maxRetries(Integer.MAX_VALUE)
+                        .initialBackoff(Duration.ZERO)
+                        .build())
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public String getData() {
+        return query.getData().join();
+    }
+
+    @Benchmark
+    public long streamData(Blackhole blackhole) {
+        return query.streamData(blackhole::consume).join();
+    }
+
+}
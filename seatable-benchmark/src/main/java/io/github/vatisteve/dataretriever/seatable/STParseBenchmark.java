@@ -0,0 +1,123 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STSqlQueryConnection;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of one response page, without network: list rows, SQL and SQL join responses, rows of SeaTable before 4.4
+ * filled with the missing columns, and the removal of the SeaTable properties from parsed rows
+ * <br />
+ * Run with {@code -prof gc} to compare the allocation rate as well
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class STParseBenchmark {
+
+    @Param({"1000"})
+    int rows;
+    @Param({"10", "80"})
+    int columns;
+
+    private STBenchmarkServer server;
+    private STTableNameQuery tableQuery;
+    private STSqlQuery sqlQuery;
+    private STRowTemplate template;
+    private byte[] rowsPage;
+    private byte[] sparseRowsPage;
+    private byte[] sqlPage;
+    private byte[] joinPage;
+    private ArrayNode parsedRows;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        server = new STBenchmarkServer(rows, columns, 0, 0);
+        tableQuery = new STTableNameQuery(STTableNameConnection.builder()
+                .url(server.url())
+                .apiKey("benchmark")
+                .version(STVersion.FROM_4_4)
+                .tableName("Table1")
+                .build());
+        sqlQuery = new STSqlQuery(STSqlQueryConnection.builder()
+                .url(server.url())
+                .apiKey("benchmark")
+                .version(STVersion.FROM_4_4)
+                .query("SELECT * FROM Table1")
+                .build());
+        template = new STRowTemplate(tableQuery.mapper.getNodeFactory(), tableQuery.getColumnsAsync().join());
+        rowsPage = server.rowsResponse(0, rows, false);
+        sparseRowsPage = server.rowsResponse(0, rows, true);
+        sqlPage = server.sqlResponse(0, rows, false);
+        joinPage = server.sqlResponse(0, rows, true);
+        parsedRows = (ArrayNode) tableQuery.mapper.readTree(rowsPage).get("rows");
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public ArrayNode detachTableResponse() {
+        return tableQuery.detachResponse(new ByteArrayInputStream(rowsPage));
+    }
+
+    @Benchmark
+    public ArrayNode detachSqlResponse() {
+        return sqlQuery.detachResponse(new ByteArrayInputStream(sqlPage));
+    }
+
+    @Benchmark
+    public ArrayNode detachJoinResponse() {
+        return sqlQuery.detachResponse(new ByteArrayInputStream(joinPage));
+    }
+
+    /**
+     * Rows of SeaTable before 4.4 (without the empty cells) parsed into the template of all columns
+     */
+    @Benchmark
+    public ArrayNode fillMissingColumns() throws IOException {
+        try (JsonParser parser = tableQuery.mapper.createParser(sparseRowsPage)) {
+            tableQuery.responseParser.seekField(parser, "rows");
+            return tableQuery.responseParser.readRows(parser, template, Set.of());
+        }
+    }
+
+    /**
+     * The copy of the parsed rows is made before every invocation, outside the measurement
+     */
+    @Benchmark
+    public void removeSeaTableProperties(ParsedPage page, Blackhole blackhole) {
+        Set<String> properties = new HashSet<>();
+        for (JsonNode row : page.rows) {
+            blackhole.consume(STConnector.removeSeaTableProperties(row, properties));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ParsedPage {
+
+        private ArrayNode rows;
+
+        @Setup(Level.Invocation)
+        public void copy(STParseBenchmark benchmark) {
+            rows = benchmark.parsedRows.deepCopy();
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Write the streamed rows in the Apache Arrow IPC stream format, one record batch per page
+ * <br />
+ * The Arrow types follow the {@link STColumn#type()} as {@link io.github.vatisteve.dataretriever.seatable.model.result.STColumnarResult}
+ * does: {@code Float64} for numbers and durations, {@code Int64} for rates, {@code Bool} for checkboxes and
+ * {@code Utf8} for the other columns (the structured values as JSON). Requires the optional {@code arrow-vector}
+ * and {@code arrow-memory-unsafe} dependencies (and {@code --add-opens=java.base/java.nio=ALL-UNNAMED})
+ * <br />
+ * The stream is ended on {@link #onComplete()}, the output is not closed. {@link #close()} releases the Arrow buffers
+ *
+ * @see <a href='https://arrow.apache.org/docs/format/Columnar.html#ipc-streaming-format'>IPC Streaming Format</a>
+ */
+public class STArrowSink implements STRowSink, AutoCloseable {
+
+    private final List<STColumn> columns;
+    private final BufferAllocator allocator;
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter writer;
+    private boolean started;
+
+    public STArrowSink(WritableByteChannel channel, List<STColumn> columns) {
+        this.columns = List.copyOf(columns);
+        this.allocator = new RootAllocator();
+        this.root = VectorSchemaRoot.create(schema(this.columns), allocator);
+        this.writer = new ArrowStreamWriter(root, null, channel);
+    }
+
+    public STArrowSink(OutputStream out, List<STColumn> columns) {
+        this(Channels.newChannel(out), columns);
+    }
+
+    static Schema schema(List<STColumn> columns) {
+        return new Schema(columns.stream().map(column -> Field.nullable(column.name(), arrowType(column.type()))).toList());
+    }
+
+    static ArrowType arrowType(String type) {
+        if (type == null) return ArrowType.Utf8.INSTANCE;
+        return switch (type) {
+            case "number", "duration" -> new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            case "rate" -> new ArrowType.Int(64, true);
+            case "checkbox" -> ArrowType.Bool.INSTANCE;
+            default -> ArrowType.Utf8.INSTANCE;
+        };
+    }
+
+    @Override
+    public void onPage(ArrayNode rows) {
+        try {
+            if (!started) {
+                writer.start();
+                started = true;
+            }
+            root.allocateNew();
+            for (int c = 0; c < columns.size(); c++) {
+                FieldVector vector = root.getVector(c);
+                String name = columns.get(c).name();
+                for (int r = 0; r < rows.size(); r++) {
+                    set(vector, r, rows.get(r).get(name));
+                }
+                vector.setValueCount(rows.size());
+            }
+            root.setRowCount(rows.size());
+            writer.writeBatch();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't write the rows: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            if (!started) writer.start(); // schema only
+            started = true;
+            writer.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        root.close();
+        allocator.close();
+    }
+
+    private static void set(FieldVector vector, int row, JsonNode value) {
+        if (value == null || value.isNull() || value.isMissingNode()) {
+            vector.setNull(row);
+            return;
+        }
+        switch (vector) {
+            case Float8Vector doubles -> {
+                if (value.isNumber()) doubles.setSafe(row, value.doubleValue());
+                else if (isDouble(value)) doubles.setSafe(row, Double.parseDouble(value.asText()));
+                else doubles.setNull(row);
+            }
+            case BigIntVector longs -> {
+                if (value.canConvertToLong()) longs.setSafe(row, value.longValue());
+                else longs.setNull(row);
+            }
+            case BitVector bits -> bits.setSafe(row, value.asBoolean() ? 1 : 0);
+            case VarCharVector texts -> texts.setSafe(row,
+                    (value.isValueNode() ? value.asText() : value.toString()).getBytes(StandardCharsets.UTF_8));
+            default -> vector.setNull(row);
+        }
+    }
+
+    private static boolean isDouble(JsonNode value) {
+        try {
+            Double.parseDouble(value.asText());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Blocking calls over a connector, meant to be run on virtual threads (the waiting thread is parked, not pinned):
+ * thousands of extractions can run concurrently, each one in plain sequential code
+ * <br />
+ * The failures are thrown as they are ({@link STConnector.STConnectException} or other runtime exceptions),
+ * not wrapped in a {@link java.util.concurrent.CompletionException}
+ *
+ * @see STExecutors#newVirtualThreadExecutor()
+ */
+public final class STBlockingRetriever {
+
+    private final STConnector connector;
+
+    private STBlockingRetriever(STConnector connector) {
+        this.connector = connector;
+    }
+
+    public static STBlockingRetriever of(STConnector connector) {
+        return new STBlockingRetriever(connector);
+    }
+
+    public String getData() {
+        return await(connector.getData());
+    }
+
+    public ArrayNode getRows() {
+        return await(connector.requestData());
+    }
+
+    /**
+     * @return Number of delivered rows
+     */
+    public long streamData(STRowSink sink) {
+        return await(connector.streamData(sink));
+    }
+
+    /**
+     * Columns of the table, or of the SQL result, the failures are thrown (unlike {@link STTableNameQuery#getColumns()})
+     */
+    public List<STColumn> getColumns() {
+        return await(switch (connector) {
+            case STTableNameQuery query -> query.getColumnsAsync();
+            case STSqlQuery query -> query.getColumnsAsync();
+            default -> throw new UnsupportedOperationException("Columns are not available for " + connector.getClass().getSimpleName());
+        });
+    }
+
+    /**
+     * Wait for the {@code future}, cancelled if the thread is interrupted
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new STConnector.STConnectException("Interrupted while waiting for SeaTable data");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new STConnector.STConnectException(e.getCause().getMessage(), e.getCause());
+        } catch (CancellationException e) {
+            throw new STConnector.STConnectException("SeaTable request cancelled");
+        }
+    }
+
+}
@@ -0,0 +1,327 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.vatisteve.dataretriever.seatable.STConnector.STConnectException;
+import io.github.vatisteve.dataretriever.seatable.instrument.STErrorEvent;
+import io.github.vatisteve.dataretriever.seatable.instrument.STInstrumentation;
+import io.github.vatisteve.dataretriever.seatable.instrument.STStageEvent;
+import io.github.vatisteve.dataretriever.seatable.instrument.STTags;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STConnection;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STHttpOptions;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STRateLimit;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableWriteConnection;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STBase;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Authorized access to one base, shared by the readers ({@link STConnector}) and the {@link STTableWriter}: base token
+ * and its refresh, requests through the shared {@link STRequestScheduler}, retries and error responses
+ *
+ * @see <a href='https://api.seatable.io/reference/limits'>About SeaTable API limitation</a>
+ */
+@Slf4j
+public abstract class STClient {
+
+    protected final STEndpoint endpoint;
+    protected final HttpClient client;
+    protected final STRequestScheduler scheduler;
+    protected final ObjectMapper mapper;
+    /**
+     * Runs the response parsing, apart from the threads of the {@link HttpClient}
+     */
+    protected final Executor parseExecutor;
+    protected final STInstrumentation instrumentation;
+    /**
+     * Options of the connector, the ones applied per request may differ from the options of the shared {@link STEndpoint}
+     */
+    protected final STHttpOptions httpOptions;
+    final STResponseParser responseParser;
+    @Getter
+    protected volatile STBase baseInfo;
+
+    private static final String AUTHORIZATION = "Authorization";
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final int UNAUTHORIZED = 401;
+
+    protected static String stAuth(String auth) {
+        return Constants.AUTH_HEADER_PREFIX + auth;
+    }
+
+    protected static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /**
+     * Quote a table or column name for the SeaTable SQL
+     */
+    protected static String sqlIdentifier(String name) {
+        return "`" + name.replace("`", "\\`") + "`";
+    }
+
+    /**
+     * Format a JSON value as a SeaTable SQL literal
+     */
+    protected static String sqlLiteral(JsonNode value) {
+        if (value == null || value.isNull()) return "null";
+        if (value.isNumber() || value.isBoolean()) return value.asText();
+        return "'" + value.asText().replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    protected STClient(STConnection connectionInfo) throws IOException, InterruptedException {
+        log.debug("Init connection to {} SeaTable version {}", connectionInfo.getUrl(), connectionInfo.getVersion());
+        endpoint = STEndpoint.of(connectionInfo);
+        client = endpoint.getClient();
+        mapper = endpoint.getMapper();
+        responseParser = endpoint.getResponseParser();
+        scheduler = endpoint.getScheduler();
+        parseExecutor = connectionInfo.getParseExecutor() == null ? STExecutors.parseExecutor() : connectionInfo.getParseExecutor();
+        instrumentation = connectionInfo.getInstrumentation() == null ? STInstrumentation.NOOP : connectionInfo.getInstrumentation();
+        httpOptions = connectionInfo.getHttpOptions() == null ? STHttpOptions.DEFAULT : connectionInfo.getHttpOptions();
+        initBaseInfo(connectionInfo);
+    }
+
+    /**
+     * Base token is cached by the {@link STEndpoint}, the server is requested only if it is missing or expired
+     * @see <a href='https://api.seatable.io/reference/getbasetokenwithapitoken'>Get Base token with API token</a>
+     */
+    public void initBaseInfo(STConnection connectionInfo) throws IOException, InterruptedException {
+        this.baseInfo = endpoint.getBaseInfo(connectionInfo.getApiKey());
+    }
+
+    public abstract STConnection getConnectionInfo();
+
+    /**
+     * Send a request to the base through the shared {@link STRequestScheduler}, authorized with the current base token
+     * <br />
+     * The base token is refreshed and the request is sent again once if the server rejects the token
+     */
+    protected <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        String apiKey = getConnectionInfo().getApiKey();
+        STBase base = endpoint.getBaseInfoAsync(apiKey).getNow(baseInfo);
+        CompletableFuture<HttpResponse<T>> sent = sendAsync(request, handler, base);
+        return cancelling(sent.thenCompose(res -> {
+            if (res.statusCode() != UNAUTHORIZED) return CompletableFuture.completedFuture(res);
+            log.debug("Base token of {} is rejected, refresh it", base.name());
+            STRequestScheduler.discard(res);
+            return endpoint.refreshBaseInfo(apiKey, base).thenCompose(refreshed -> {
+                baseInfo = refreshed;
+                return sendAsync(request, handler, refreshed);
+            });
+        }), sent);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler, STBase base) {
+        HttpRequest.Builder authorized = HttpRequest.newBuilder(request, (name, value) -> !AUTHORIZATION.equalsIgnoreCase(name))
+                .header(AUTHORIZATION, stAuth(base.token()));
+        if (httpOptions.isCompression() && request.headers().firstValue(ACCEPT_ENCODING).isEmpty()) {
+            authorized.header(ACCEPT_ENCODING, STContentDecoding.ACCEPT_ENCODING);
+        }
+        if (httpOptions.getRequestTimeout() != null && request.timeout().isEmpty()) {
+            authorized.timeout(httpOptions.getRequestTimeout());
+        }
+        HttpResponse.BodyHandler<T> decoding = STContentDecoding.decoding(handler);
+        if (instrumentation != STInstrumentation.NOOP) {
+            decoding = STRequestMeter.measuring(decoding, request, instrumentation, tags());
+        }
+        return scheduler.send(client, authorized.build(), decoding, base.uuid(), getConnectionInfo().getApiKey());
+    }
+
+    /**
+     * Request again (after a backoff) on a network failure or a server error, up to {@code maxRetries} times
+     */
+    protected <T> CompletableFuture<T> withRetries(Supplier<CompletableFuture<T>> request, int maxRetries) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        withRetries(request, maxRetries, 0, result);
+        return result;
+    }
+
+    private <T> void withRetries(Supplier<CompletableFuture<T>> request, int maxRetries, int retry, CompletableFuture<T> result) {
+        if (result.isDone()) return; // cancelled during the backoff
+        CompletableFuture<T> attempt = request.get();
+        cancelling(result, attempt);
+        attempt.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (retry >= maxRetries || !isTransient(cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            long backoff = retryBackoff(retry);
+            log.debug("Request failed ({}), retry #{} in {} ms", cause.getMessage(), retry + 1, TimeUnit.NANOSECONDS.toMillis(backoff));
+            CompletableFuture.delayedExecutor(backoff, TimeUnit.NANOSECONDS).execute(() -> withRetries(request, maxRetries, retry + 1, result));
+        });
+    }
+
+    /**
+     * Cancel {@code source} once {@code dependent} is cancelled: a derived future doesn't propagate its cancellation,
+     * which has to reach the {@link STRequestScheduler} to abort the HTTP exchange
+     * @return {@code dependent}
+     */
+    protected static <T> CompletableFuture<T> cancelling(CompletableFuture<T> dependent, CompletableFuture<?> source) {
+        dependent.whenComplete((value, e) -> {
+            if (dependent.isCancelled()) source.cancel(true);
+        });
+        return dependent;
+    }
+
+    /**
+     * Network failure (also while the body is parsed) or server error
+     */
+    protected static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) return true;
+            if (cause instanceof STConnectException connect && connect.getStatusCode() >= 500) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Exponential backoff from the {@link STRateLimit#getInitialBackoff() initialBackoff} of the request budget
+     */
+    protected long retryBackoff(int retry) {
+        long initial = scheduler.getRateLimit().getInitialBackoff().toNanos();
+        return Math.min(initial << Math.min(retry, 30), scheduler.getRateLimit().getMaxBackoff().toNanos());
+    }
+
+    /**
+     * Tags of the measures given to the {@link STInstrumentation}
+     */
+    protected STTags tags() {
+        STConnection connectionInfo = getConnectionInfo();
+        String table = switch (connectionInfo) {
+            case STTableNameConnection tableName -> tableName.getTableName();
+            case STTableWriteConnection write -> write.getTableName();
+            default -> null;
+        };
+        return new STTags(baseInfo.uuid(), table, connectionInfo.getVersion());
+    }
+
+    /**
+     * {@code detach} measured as the {@link STStageEvent#PARSE} stage, the time spent waiting on the network for the
+     * streamed body is not counted
+     */
+    protected Function<InputStream, ArrayNode> parsing(Function<InputStream, ArrayNode> detach) {
+        if (instrumentation == STInstrumentation.NOOP) return detach;
+        return response -> {
+            long start = System.nanoTime();
+            ReadTimedInputStream timed = new ReadTimedInputStream(response);
+            ArrayNode rows = detach.apply(timed);
+            instrumentation.onStage(new STStageEvent(tags(), STStageEvent.PARSE, rows.size(), System.nanoTime() - start - timed.readNanos));
+            return rows;
+        };
+    }
+
+    /**
+     * Body keeping the time spent in its reads
+     */
+    private static class ReadTimedInputStream extends FilterInputStream {
+
+        private long readNanos;
+
+        ReadTimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.read();
+            } finally {
+                readNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.read(b, off, len);
+            } finally {
+                readNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    /**
+     * Send the {@code sql} to the SQL endpoint of the base
+     * @return Future of the response body, to be passed to a SQL response parser
+     * @see <a href='https://api.seatable.io/reference/querysql'>Query with SQL</a>
+     */
+    protected CompletableFuture<InputStream> requestSql(String sql) {
+        STConnection connectionInfo = getConnectionInfo();
+        URI uri = URI.create(String.format("%s%s%s/sql",
+                connectionInfo.getUrl(), connectionInfo.getVersion().getTablePath(), baseInfo.uuid()
+        ));
+        ObjectNode queryBody = mapper.createObjectNode()
+            .put("sql", sql);
+        if (connectionInfo.getVersion().isSupportConvertKeys()) {
+            queryBody.put("convert_keys", true);
+        }
+        log.trace("Request SQL: {}", sql);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Accept", "application/json")
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(queryBody.toString()))
+            .build();
+        CompletableFuture<HttpResponse<InputStream>> sent = sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        return cancelling(sent
+            .thenApply(res -> {
+                if (res.statusCode() == 200) return res;
+                throw handleErrorResponse(res);
+            })
+            .thenApply(HttpResponse::body), sent);
+    }
+
+    /**
+     * Parse the {@code body} on the parse executor, cancelling the parsed future cancels the request
+     */
+    protected CompletableFuture<ArrayNode> parse(CompletableFuture<InputStream> body, Function<InputStream, ArrayNode> detach) {
+        return cancelling(body.thenApplyAsync(parsing(detach), parseExecutor), body);
+    }
+
+    protected STConnectException handleErrorResponse(HttpResponse<?> response) {
+        try {
+            JsonNode body = response.body() instanceof InputStream in
+                    ? readAndClose(in)
+                    : mapper.readTree(String.valueOf(response.body()));
+            JsonNode err = body.get(getConnectionInfo().getVersion().getErrorMessageKey());
+            instrumentation.onError(new STErrorEvent(tags(), response.statusCode(), err.asText()));
+            return new STConnectException(err.asText(), response.statusCode());
+        } catch (Exception e) {
+            instrumentation.onError(new STErrorEvent(tags(), response.statusCode(), null));
+            return new STConnectException(response.statusCode());
+        }
+    }
+
+    private JsonNode readAndClose(InputStream in) throws IOException {
+        try (in) {
+            return mapper.readTree(in);
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.vatisteve.dataretriever.seatable.STConnector.SEA_TABLE_PROPERTIES_PREFIX;
+
+/**
+ * Columns of a SQL result in the order of its metadata, computed once per response: the column ids (keys of the
+ * result rows) and the interned output names, {@code table_name.column_name} for a join statement
+ * <br />
+ * The rows of a join statement are assembled by position, as {@link ObjectNode} keyed by the output names in the
+ * column order or as {@link ArrayNode} of the values (positional form)
+ */
+final class STColumnPlan {
+
+    private final String[] ids;
+    private final String[] names;
+    private final Map<String, Integer> positions;
+    private final List<STColumn> columns;
+
+    private STColumnPlan(String[] ids, String[] names, List<STColumn> columns) {
+        this.ids = ids;
+        this.names = names;
+        this.columns = columns;
+        this.positions = HashMap.newHashMap(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            positions.put(ids[i], i);
+        }
+    }
+
+    /**
+     * @param metadata  Metadata of the SQL result, the SeaTable properties are left out
+     * @param join      Name the columns {@code table_name.column_name}
+     * @param keyById   The result rows are keyed by the column ids (join statement or keys not converted)
+     */
+    static STColumnPlan of(JsonNode metadata, boolean join, boolean keyById) {
+        List<String> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<STColumn> columns = new ArrayList<>();
+        for (JsonNode column : metadata) {
+            String name = column.path("name").asText();
+            if (name.startsWith(SEA_TABLE_PROPERTIES_PREFIX)) continue;
+            String id = column.path("id").asText();
+            String outputName = (join ? column.path("table_name").asText() + "." + name : keyById ? id : name).intern();
+            ids.add(keyById ? id : name);
+            names.add(outputName);
+            columns.add(new STColumn(outputName, column.path("type").textValue(), outputName, null, null));
+        }
+        return new STColumnPlan(ids.toArray(String[]::new), names.toArray(String[]::new), List.copyOf(columns));
+    }
+
+    /**
+     * Columns of the assembled rows, keyed and named by the output names
+     */
+    List<STColumn> columns() {
+        return columns;
+    }
+
+    /**
+     * Assemble the rows while they are read, the fields outside of the plan are skipped without being materialized
+     * @param parser    The parser at the {@link JsonToken#START_ARRAY} token of the results
+     */
+    ArrayNode readRows(JsonParser parser, STResponseParser responseParser, JsonNodeFactory nodeFactory, boolean positional) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new STConnector.STConnectException("Invalid response from SeaTable server, results is not an array!");
+        }
+        ArrayNode rows = nodeFactory.arrayNode();
+        JsonNode[] values = new JsonNode[ids.length];
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                parser.nextToken();
+                Integer position = positions.get(field);
+                if (position == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                values[position] = responseParser.readValue(parser);
+            }
+            rows.add(assemble(values, nodeFactory, positional));
+            Arrays.fill(values, null);
+        }
+        return rows;
+    }
+
+    /**
+     * Assemble the rows already read, when the results come before the metadata in the response
+     */
+    ArrayNode assemble(ArrayNode results, JsonNodeFactory nodeFactory, boolean positional) {
+        ArrayNode rows = nodeFactory.arrayNode(results.size());
+        JsonNode[] values = new JsonNode[ids.length];
+        for (JsonNode row : results) {
+            for (int i = 0; i < ids.length; i++) {
+                values[i] = row.get(ids[i]);
+            }
+            rows.add(assemble(values, nodeFactory, positional));
+        }
+        return rows;
+    }
+
+    private JsonNode assemble(JsonNode[] values, JsonNodeFactory nodeFactory, boolean positional) {
+        if (positional) {
+            ArrayNode row = nodeFactory.arrayNode(values.length);
+            for (JsonNode value : values) {
+                row.add(value == null ? nodeFactory.nullNode() : value);
+            }
+            return row;
+        }
+        Map<String, JsonNode> fields = LinkedHashMap.newLinkedHashMap(values.length);
+        for (int i = 0; i < values.length; i++) {
+            fields.put(names[i], values[i] == null ? nodeFactory.nullNode() : values[i]);
+        }
+        return new ObjectNode(nodeFactory, fields);
+    }
+
+}
@@ -0,0 +1,35 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import io.github.vatisteve.dataretriever.seatable.model.result.STColumnarResult;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Collect the streamed rows into a {@link STColumnarResult}, every page can be released once appended
+ */
+public class STColumnarSink implements STRowSink {
+
+    @Getter
+    private final STColumnarResult result;
+
+    public STColumnarSink(List<STColumn> columns) {
+        this.result = new STColumnarResult(columns);
+    }
+
+    @Override
+    public void onPage(ArrayNode rows) {
+        for (JsonNode row : rows) {
+            result.append(row);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        result.trim();
+    }
+
+}
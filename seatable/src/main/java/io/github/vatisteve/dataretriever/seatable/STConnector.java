@@ -3,24 +3,24 @@ package io.github.vatisteve.dataretriever.seatable;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.vatisteve.dataretriever.BatchSink;
+import io.github.vatisteve.dataretriever.DataRetrieveException;
+import io.github.vatisteve.dataretriever.DataRetriever;
+import io.github.vatisteve.dataretriever.seatable.instrument.STInstrumentation;
+import io.github.vatisteve.dataretriever.seatable.instrument.STStageEvent;
 import io.github.vatisteve.dataretriever.seatable.model.connection.STConnection;
-import io.github.vatisteve.dataretriever.seatable.model.metadata.STBase;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serial;
-import java.net.URI;
-import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
+import java.util.Deque;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * @author tinhnv - Jul 26 2024
@@ -28,73 +28,149 @@ import java.util.concurrent.CompletableFuture;
  * @see <a href='https://docs.google.com/spreadsheets/d/1DpPbZ9GJThAHFY5A10AQ5Bo9WoTrGuv9JBAnFnfAODo/edit?gid=1537567090#gid=1537567090'>Document</a>
  */
 @Slf4j
-public abstract class STConnector {
-
-    protected final HttpClient client;
-    protected final ObjectMapper mapper;
-    @Getter
-    protected STBase baseInfo;
+public abstract class STConnector extends STClient implements DataRetriever<ArrayNode> {
 
     public static final String SEA_TABLE_PROPERTIES_PREFIX = "_";
 
-    protected static String stAuth(String auth) {
-        return Constants.AUTH_HEADER_PREFIX + auth;
+    protected STConnector(STConnection connectionInfo) throws IOException, InterruptedException {
+        super(connectionInfo);
+    }
+
+    /**
+     * Parse the response body while it is received, the stream is closed after parsing
+     */
+    protected abstract ArrayNode detachResponse(InputStream response);
+    protected abstract CompletableFuture<String> transformData();
+
+    /**
+     * Request data and push every page to the {@code sink} as soon as it is detached
+     * @return Future of the number of delivered rows
+     */
+    protected abstract CompletableFuture<Long> requestData(STRowSink sink);
+
+    /**
+     * Request and collect all data in one {@link ArrayNode}
+     */
+    protected CompletableFuture<ArrayNode> requestData() {
+        ArrayNode result = mapper.createArrayNode();
+        return requestData(result::addAll).thenApply(count -> result);
     }
 
-    protected static String encode(String s) {
-        return URLEncoder.encode(s, StandardCharsets.UTF_8).replace("+", "%20");
+    /**
+     * Serialize the rows as a JSON array, measured as the {@link STStageEvent#TRANSFORM} stage
+     */
+    protected String transform(ArrayNode rows) {
+        long start = System.nanoTime();
+        String data = rows.toString();
+        if (instrumentation != STInstrumentation.NOOP) {
+            instrumentation.onStage(new STStageEvent(tags(), STStageEvent.TRANSFORM, rows.size(), System.nanoTime() - start));
+        }
+        return data;
     }
 
-    protected STConnector(STConnection connectionInfo) throws IOException, InterruptedException {
-        log.debug("Init connection to {} SeaTable version {}", connectionInfo.getUrl(), connectionInfo.getVersion());
-        client  = HttpClient.newHttpClient();
-        // add http client configuration if needed
-        //...
-        mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        initBaseInfo(connectionInfo);
+    /**
+     * Request of one page of {@code limit} rows from {@code offset}
+     */
+    @FunctionalInterface
+    protected interface STPageRequest {
+        CompletableFuture<ArrayNode> request(long offset, int limit);
     }
 
     /**
-     * @see <a href='https://api.seatable.io/reference/getbasetokenwithapitoken'>Get Base token with API token</a>
+     * Keep up to {@code parallelism} pages in flight, deliver them to the {@code sink} in offset order
+     * and stop at the first short (or empty) page
+     * <br />
+     * The pending pages are cancelled (with their requests) once a page is short or failed, or the returned future is cancelled
+     * @param maxOffset Exclusive end of the requested range, {@link Long#MAX_VALUE} for no limit
+     * @return Future of the number of delivered rows
      */
-    public void initBaseInfo(STConnection connectionInfo) throws IOException, InterruptedException {
-        URI uri = URI.create(connectionInfo.getUrl()).resolve("/api/v2.1/dtable/app-access-token/");
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(uri)
-            .header("Accept", "application/json")
-            .header("Authorization", stAuth(connectionInfo.getApiKey()))
-            .GET()
-            .build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new IOException("Unexpected response code when getting base info: " + response.statusCode());
+    protected CompletionStage<Long> processPagesInParallel(STRowSink sink, STPageRequest pageRequest, int pageSize,
+                                                           int parallelism, long offset, long maxOffset) {
+        Deque<CompletableFuture<ArrayNode>> window = new ConcurrentLinkedDeque<>();
+        long nextOffset = offset;
+        for (int i = 0; i < parallelism && nextOffset < maxOffset; i++, nextOffset += pageSize) {
+            window.add(pageRequest.request(nextOffset, pageSize(pageSize, nextOffset, maxOffset)));
         }
-        log.trace("Base info response: {}", response.body());
-        this.baseInfo = responseToBaseInfo(response.body());
+        CompletableFuture<Long> processed = processNextPageInParallel(sink, pageRequest, pageSize, window, nextOffset, maxOffset, 0)
+                .toCompletableFuture();
+        processed.whenComplete((count, e) -> {
+            if (e != null) cancel(window);
+        });
+        return processed;
     }
 
-    private STBase responseToBaseInfo(String baseInfoInString) throws JsonProcessingException {
-        JsonNode node = mapper.readTree(baseInfoInString);
-        String accessToken = node.get("access_token").asText();
-        String baseUuid = node.get("dtable_uuid").asText();
-        String baseName = node.get("dtable_name").asText();
-        return new STBase(accessToken, baseUuid, baseName);
+    private CompletionStage<Long> processNextPageInParallel(STRowSink sink, STPageRequest pageRequest, int pageSize,
+                                                            Deque<CompletableFuture<ArrayNode>> window,
+                                                            long nextOffset, long maxOffset, long delivered) {
+        CompletableFuture<ArrayNode> head = window.poll();
+        if (head == null) return CompletableFuture.completedFuture(delivered);
+        return head.thenCompose(data -> {
+            if (data.size() < pageSize) {
+                log.trace("Short page received with {} rows, cancel {} pending pages", data.size(), window.size());
+                if (!data.isEmpty()) sink.onPage(data);
+                cancel(window);
+                return CompletableFuture.completedFuture(delivered + data.size());
+            }
+            sink.onPage(data);
+            long offset = nextOffset;
+            if (offset < maxOffset) {
+                log.trace("Request next page with offset {} while {} pages are pending", offset, window.size());
+                window.add(pageRequest.request(offset, pageSize(pageSize, offset, maxOffset)));
+                offset += pageSize;
+            }
+            return processNextPageInParallel(sink, pageRequest, pageSize, window, offset, maxOffset, delivered + data.size());
+        });
     }
 
-    public abstract STConnection getConnectionInfo();
-    protected abstract CompletableFuture<ArrayNode> requestData();
-    protected abstract ArrayNode detachResponse(String response);
-    protected abstract CompletableFuture<String> transformData();
+    private static void cancel(Deque<CompletableFuture<ArrayNode>> window) {
+        CompletableFuture<ArrayNode> pending;
+        while ((pending = window.poll()) != null) {
+            pending.cancel(true);
+        }
+    }
+
+    protected static int pageSize(int pageSize, long offset, long maxOffset) {
+        return (int) Math.min(pageSize, maxOffset - offset);
+    }
 
     public CompletableFuture<String> getData() {
         return transformData(); // by default
     }
 
+    /**
+     * Stream the data page by page, the memory usage is bounded by about one page whatever the table size
+     * @return Future of the number of delivered rows, completed after {@link STRowSink#onComplete()}
+     */
+    public CompletableFuture<Long> streamData(STRowSink sink) {
+        return requestData(sink).thenApply(count -> {
+            sink.onComplete();
+            return count;
+        });
+    }
+
+    /**
+     * Pages of rows delivered to a sink of the {@link DataRetriever} SPI, as {@link #streamData(STRowSink)} does
+     */
+    @Override
+    public CompletableFuture<Long> streamData(BatchSink<ArrayNode> sink) {
+        if (sink instanceof STRowSink rowSink) return streamData(rowSink);
+        return streamData(new STRowSink() {
+            @Override
+            public void onPage(ArrayNode rows) {
+                sink.onBatch(rows);
+            }
+
+            @Override
+            public void onComplete() {
+                sink.onComplete();
+            }
+        });
+    }
+
     /**
      * NOTE: Inefficient use of memory
      * <br />
-     * Should use the {@link #getData()} instead
+     * Should use the {@link #getData()} or {@link #streamData(STRowSink)} instead
      * <br />
      * Catch the {@link java.util.concurrent.CompletionException}
      */
@@ -116,25 +192,31 @@ public abstract class STConnector {
         return ((ObjectNode) node).remove(keysToRemove);
     }
 
-    public static class STConnectException extends RuntimeException {
+    public static class STConnectException extends DataRetrieveException {
+        /**
+         * Status code of the error response, {@code 0} if the error is not a response of the server
+         */
+        private final int statusCode;
         public STConnectException(int statusCode) {
             super("Error requesting to SeaTable server with status code " + statusCode);
+            this.statusCode = statusCode;
         }
         public STConnectException(String message) {
+            this(message, 0);
+        }
+        public STConnectException(String message, int statusCode) {
             super(message);
+            this.statusCode = statusCode;
+        }
+        public STConnectException(String message, Throwable cause) {
+            super(message, cause);
+            this.statusCode = 0;
+        }
+        public int getStatusCode() {
+            return statusCode;
         }
         @Serial
         private static final long serialVersionUID = -177508340932532651L;
     }
 
-    protected STConnectException handleErrorResponse(HttpResponse<String> response) {
-        try {
-            JsonNode err = mapper.readTree(response.body())
-                    .get(getConnectionInfo().getVersion().getErrorMessageKey());
-            return new STConnectException(err.asText());
-        } catch (Exception e) {
-            return new STConnectException(response.statusCode());
-        }
-    }
-
 }
@@ -0,0 +1,159 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompress the gzip or deflate encoded responses while they are received, before the body handler of the request
+ * <br />
+ * The compressed chunks are inflated one by one, the body is never buffered as a whole
+ *
+ * @see <a href='https://www.rfc-editor.org/rfc/rfc9110#name-content-encoding'>Content-Encoding</a>
+ */
+final class STContentDecoding {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private STContentDecoding() {
+    }
+
+    /**
+     * @return The {@code handler} receiving the decoded body, unchanged for a response without content encoding
+     */
+    static <T> HttpResponse.BodyHandler<T> decoding(HttpResponse.BodyHandler<T> handler) {
+        return responseInfo -> {
+            String encoding = responseInfo.headers().firstValue("Content-Encoding").orElse("").strip().toLowerCase(Locale.ROOT);
+            return switch (encoding) {
+                case "gzip", "x-gzip" -> new DecodingSubscriber<>(handler.apply(responseInfo), true);
+                case "deflate" -> new DecodingSubscriber<>(handler.apply(responseInfo), false);
+                default -> handler.apply(responseInfo);
+            };
+        };
+    }
+
+    /**
+     * Length of the gzip member header at the start of {@code data}, {@code -1} if the header is incomplete
+     * @see <a href='https://www.rfc-editor.org/rfc/rfc1952#page-5'>GZIP member format</a>
+     */
+    static int gzipHeaderLength(byte[] data) {
+        if (data.length < 10) return -1;
+        if ((data[0] & 0xff) != 0x1f || (data[1] & 0xff) != 0x8b || data[2] != 8) {
+            throw new IllegalStateException("Invalid gzip header");
+        }
+        int flags = data[3];
+        int length = 10;
+        if ((flags & 4) != 0) { // FEXTRA
+            if (data.length < length + 2) return -1;
+            length += 2 + ((data[length] & 0xff) | (data[length + 1] & 0xff) << 8);
+        }
+        for (int zeroTerminated : new int[] {8, 16}) { // FNAME, FCOMMENT
+            if ((flags & zeroTerminated) == 0) continue;
+            while (length < data.length && data[length] != 0) length++;
+            if (length++ >= data.length) return -1;
+        }
+        if ((flags & 2) != 0) length += 2; // FHCRC
+        return length <= data.length ? length : -1;
+    }
+
+    private static final class DecodingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpResponse.BodySubscriber<T> downstream;
+        private final Inflater inflater;
+        /**
+         * Received bytes of an incomplete gzip header, {@code null} once the header is skipped
+         */
+        private byte[] header;
+        private boolean empty = true;
+        private Flow.Subscription subscription;
+
+        private DecodingSubscriber(HttpResponse.BodySubscriber<T> downstream, boolean gzip) {
+            this.downstream = downstream;
+            this.inflater = new Inflater(gzip); // gzip members carry raw deflate data
+            this.header = gzip ? new byte[0] : null;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            List<ByteBuffer> decoded = new ArrayList<>();
+            try {
+                for (ByteBuffer buffer : item) {
+                    inflate(buffer, decoded);
+                }
+            } catch (DataFormatException | IllegalStateException e) {
+                subscription.cancel();
+                inflater.end();
+                downstream.onError(new STConnector.STConnectException("Couldn't decompress the response: " + e.getMessage()));
+                return;
+            }
+            if (decoded.isEmpty()) {
+                subscription.request(1); // keep the demand of the downstream
+            } else {
+                downstream.onNext(decoded);
+            }
+        }
+
+        private void inflate(ByteBuffer buffer, List<ByteBuffer> decoded) throws DataFormatException {
+            if (inflater.finished()) return; // gzip trailer
+            empty &= !buffer.hasRemaining();
+            byte[] input = new byte[buffer.remaining()];
+            buffer.get(input);
+            if (header != null) {
+                byte[] received = new byte[header.length + input.length];
+                System.arraycopy(header, 0, received, 0, header.length);
+                System.arraycopy(input, 0, received, header.length, input.length);
+                int headerLength = gzipHeaderLength(received);
+                if (headerLength < 0) {
+                    header = received;
+                    return;
+                }
+                header = null;
+                input = new byte[received.length - headerLength];
+                System.arraycopy(received, headerLength, input, 0, input.length);
+            }
+            inflater.setInput(input);
+            while (!inflater.finished() && !inflater.needsInput()) {
+                byte[] output = new byte[CHUNK_SIZE];
+                int length = inflater.inflate(output);
+                if (length > 0) decoded.add(ByteBuffer.wrap(output, 0, length));
+                else if (inflater.needsDictionary()) throw new DataFormatException("Preset dictionary is not supported");
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            inflater.end();
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            boolean truncated = !empty && !inflater.finished();
+            inflater.end();
+            if (truncated) {
+                downstream.onError(new STConnector.STConnectException("The compressed response is truncated"));
+            } else {
+                downstream.onComplete();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write the streamed rows as CSV (RFC 4180, UTF-8) with a header line, as the pages arrive
+ * <br />
+ * The structured values (links, collaborators, files, ...) are written as JSON. Without given columns,
+ * the columns are the fields of the first row. The output is flushed on {@link #onComplete()} but not closed
+ *
+ * @see STConnector#streamData(STRowSink)
+ */
+public class STCsvSink implements STRowSink {
+
+    private final Writer writer;
+    private List<String> columns;
+
+    /**
+     * @param columns Columns in output order, {@code null} to take the fields of the first row
+     */
+    public STCsvSink(OutputStream out, List<STColumn> columns) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (columns != null) {
+            this.columns = columns.stream().map(STColumn::name).toList();
+            writeHeader();
+        }
+    }
+
+    public STCsvSink(WritableByteChannel channel, List<STColumn> columns) {
+        this(Channels.newOutputStream(channel), columns);
+    }
+
+    @Override
+    public void onPage(ArrayNode rows) {
+        try {
+            for (JsonNode row : rows) {
+                if (columns == null) {
+                    List<String> names = new ArrayList<>();
+                    row.fieldNames().forEachRemaining(names::add);
+                    columns = names;
+                    writeHeader();
+                }
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0) writer.write(',');
+                    writeField(cell(row.get(columns.get(i))));
+                }
+                writer.write("\r\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't write the rows: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeHeader() {
+        try {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) writer.write(',');
+                writeField(columns.get(i));
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) return;
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String cell(JsonNode value) {
+        if (value == null || value.isNull() || value.isMissingNode()) return null;
+        return value.isValueNode() ? value.asText() : value.toString();
+    }
+
+}
@@ -0,0 +1,241 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.result.STDeltaResult;
+import io.github.vatisteve.dataretriever.seatable.model.result.STWatermark;
+import io.github.vatisteve.dataretriever.seatable.store.STWatermarkStore;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Incremental extract of a table: only the rows modified since the watermark of the previous sync are requested
+ * (through the SQL api, ordered by {@code _mtime}), the deleted rows are detected from the row count and the row ids
+ * <br />
+ * The rows keep their {@code _id} and {@code _mtime}. The first sync (without watermark) delivers the whole table
+ * <br />
+ * Call {@link #commit(STDeltaResult)} once the delta is applied, the next sync starts from its watermark
+ *
+ * @see <a href='https://api.seatable.io/reference/querysql'>Query with SQL</a>
+ */
+@Slf4j
+@Getter
+public class STDeltaSync extends STConnector {
+
+    private static final String ROW_ID = "_id";
+    private static final String ROW_MTIME = "_mtime";
+    private static final Set<String> DELTA_PROPERTIES = Set.of(ROW_ID, ROW_MTIME);
+
+    private final STTableNameConnection connectionInfo;
+    private final STWatermarkStore watermarkStore;
+    /**
+     * Rows modified up to this duration before the watermark are requested again, to cover the clock skew
+     */
+    @Setter
+    private Duration overlap = Duration.ofMinutes(1);
+    /**
+     * Compare the row ids on every sync, otherwise only when the row count doesn't match
+     * (a deletion balanced by an insertion is then missed until the next full check)
+     */
+    @Setter
+    private boolean fullIdCheck;
+
+    public STDeltaSync(STTableNameConnection connectionInfo, STWatermarkStore watermarkStore) throws IOException, InterruptedException {
+        super(connectionInfo);
+        this.connectionInfo = connectionInfo;
+        this.watermarkStore = watermarkStore;
+    }
+
+    /**
+     * Stream the rows created or modified since the previous watermark to the {@code sink}
+     * @return Future of the delta, completed after {@link STRowSink#onComplete()}, its watermark is not committed yet
+     */
+    public CompletableFuture<STDeltaResult> sync(STRowSink sink) {
+        return delta(sink).thenApply(result -> {
+            sink.onComplete();
+            return result;
+        });
+    }
+
+    private CompletableFuture<STDeltaResult> delta(STRowSink sink) {
+        STWatermark previous = watermarkStore.load(baseInfo.uuid(), connectionInfo.getTableName()).orElse(null);
+        String table = sqlIdentifier(connectionInfo.getTableName());
+        StringBuilder statement = new StringBuilder("SELECT * FROM ").append(table);
+        if (previous != null) {
+            String since = DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(previous.mtime().minus(overlap).atOffset(ZoneOffset.UTC));
+            statement.append(" WHERE ").append(sqlIdentifier(ROW_MTIME)).append(" > ").append(sqlLiteral(TextNode.valueOf(since)));
+        }
+        log.debug("Delta sync of table {} since {}", connectionInfo.getTableName(), previous == null ? "the beginning" : previous.mtime());
+        DeltaState state = new DeltaState(previous);
+        return processNextDelta(sink, state, statement.toString(), previous != null, null, null, 0)
+            .thenCompose(upserts -> deletions(state).thenApply(deletedIds -> {
+                Set<String> rowIds = state.currentIds;
+                if (rowIds == null) { // no full scan: previous rows plus the inserted ones
+                    rowIds = previous == null ? new HashSet<>() : new HashSet<>(previous.rowIds());
+                    rowIds.addAll(state.upsertIds);
+                }
+                log.debug("Delta sync of table {}: {} upserts, {} deletions", connectionInfo.getTableName(), upserts, deletedIds.size());
+                return new STDeltaResult(upserts, deletedIds, new STWatermark(state.mtime, rowIds));
+            }))
+            .toCompletableFuture();
+    }
+
+    /**
+     * Keyset pagination on {@code (_mtime, _id)}: a row modified during the sync moves after the last page instead of
+     * shifting the next pages (an offset page would skip a row, then left behind the watermark)
+     * @param filtered  The statement already has a {@code WHERE} clause
+     */
+    private CompletionStage<Long> processNextDelta(STRowSink sink, DeltaState state, String statement, boolean filtered,
+                                                   JsonNode lastMtime, JsonNode lastId, long delivered) {
+        String mtime = sqlIdentifier(ROW_MTIME);
+        String id = sqlIdentifier(ROW_ID);
+        StringBuilder sql = new StringBuilder(statement);
+        if (lastMtime != null) {
+            sql.append(filtered ? " AND " : " WHERE ")
+                    .append('(').append(mtime).append(" > ").append(sqlLiteral(lastMtime))
+                    .append(" OR (").append(mtime).append(" = ").append(sqlLiteral(lastMtime))
+                    .append(" AND ").append(id).append(" > ").append(sqlLiteral(lastId)).append("))");
+        }
+        sql.append(" ORDER BY ").append(mtime).append(", ").append(id).append(" LIMIT ").append(STSqlQuery.SQL_ROW_LIMIT);
+        return requestSql(sql.toString()).thenApplyAsync(parsing(this::detachResponse), parseExecutor).thenCompose(rows -> {
+            if (rows.isEmpty()) return CompletableFuture.completedFuture(delivered);
+            JsonNode last = rows.get(rows.size() - 1);
+            JsonNode nextMtime = last.get(ROW_MTIME);
+            JsonNode nextId = last.get(ROW_ID);
+            if (nextMtime == null || nextMtime.isNull() || nextId == null || nextId.isNull()) {
+                throw new STConnectException("Row properties _mtime and _id are missing from the result of table " + connectionInfo.getTableName());
+            }
+            rows.forEach(state::track);
+            sink.onPage(rows);
+            if (rows.size() < STSqlQuery.SQL_ROW_LIMIT) return CompletableFuture.completedFuture(delivered + rows.size());
+            return processNextDelta(sink, state, statement, filtered, nextMtime, nextId, delivered + rows.size());
+        });
+    }
+
+    /**
+     * Save the watermark of the delta, the next sync requests only the rows modified after it
+     */
+    public void commit(STDeltaResult result) {
+        watermarkStore.save(baseInfo.uuid(), connectionInfo.getTableName(), result.watermark());
+    }
+
+    private CompletableFuture<List<String>> deletions(DeltaState state) {
+        if (state.previous == null) return CompletableFuture.completedFuture(List.of());
+        CompletableFuture<Boolean> suspected;
+        if (fullIdCheck) {
+            suspected = CompletableFuture.completedFuture(true);
+        } else {
+            Set<String> inserted = new HashSet<>(state.upsertIds);
+            inserted.removeAll(state.previous.rowIds());
+            long expected = state.previous.rowIds().size() + (long) inserted.size();
+            suspected = countRows().thenApply(count -> {
+                log.trace("Table {} has {} rows, {} expected", connectionInfo.getTableName(), count, expected);
+                return count != expected;
+            });
+        }
+        return suspected.thenCompose(scan -> {
+            if (!scan) return CompletableFuture.completedFuture(List.of());
+            Set<String> currentIds = new HashSet<>();
+            return scanRowIds(null, currentIds).thenApply(v -> {
+                state.currentIds = currentIds;
+                List<String> deleted = new ArrayList<>();
+                for (String id : state.previous.rowIds()) {
+                    if (!currentIds.contains(id)) deleted.add(id);
+                }
+                return deleted;
+            });
+        });
+    }
+
+    private CompletableFuture<Long> countRows() {
+        return requestSql("SELECT COUNT(*) FROM " + sqlIdentifier(connectionInfo.getTableName()))
+                .thenApplyAsync(parsing(this::detachResponse), parseExecutor)
+                .thenApply(rows -> rows.isEmpty() ? 0L : rows.get(0).elements().next().asLong());
+    }
+
+    /**
+     * Keyset scan of all the row ids
+     */
+    private CompletableFuture<Void> scanRowIds(String lastId, Set<String> ids) {
+        String id = sqlIdentifier(ROW_ID);
+        String sql = "SELECT " + id + " FROM " + sqlIdentifier(connectionInfo.getTableName())
+                + (lastId == null ? "" : " WHERE " + id + " > " + sqlLiteral(TextNode.valueOf(lastId)))
+                + " ORDER BY " + id + " LIMIT " + STSqlQuery.SQL_ROW_LIMIT;
+        return requestSql(sql).thenApplyAsync(parsing(this::detachResponse), parseExecutor).thenCompose(rows -> {
+            String last = null;
+            for (JsonNode row : rows) {
+                last = row.get(ROW_ID).asText();
+                ids.add(last);
+            }
+            if (rows.size() < STSqlQuery.SQL_ROW_LIMIT) return CompletableFuture.completedFuture(null);
+            return scanRowIds(last, ids);
+        });
+    }
+
+    @Override
+    protected CompletableFuture<Long> requestData(STRowSink sink) {
+        return delta(sink).thenApply(STDeltaResult::upserts);
+    }
+
+    @Override
+    protected ArrayNode detachResponse(InputStream response) {
+        try (JsonParser parser = mapper.createParser(response)) {
+            if (!responseParser.seekField(parser, "results")) {
+                throw new STConnectException("Invalid response from SeaTable server, results not found!");
+            }
+            return responseParser.readRows(parser, null, DELTA_PROPERTIES);
+        } catch (IOException e) {
+            log.error("Error occurred when processing JSON data: {}", e.getMessage(), e);
+            throw new STConnectException("Error occurred when processing JSON data: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected CompletableFuture<String> transformData() {
+        return requestData().thenApply(this::transform);
+    }
+
+    /**
+     * Progress of one sync, updated by the pages in order
+     */
+    private static final class DeltaState {
+        private final STWatermark previous;
+        private final Set<String> upsertIds = new HashSet<>();
+        private Instant mtime;
+        private Set<String> currentIds;
+
+        private DeltaState(STWatermark previous) {
+            this.previous = previous;
+            this.mtime = previous == null ? Instant.EPOCH : previous.mtime();
+        }
+
+        private void track(JsonNode row) {
+            JsonNode id = row.get(ROW_ID);
+            if (id != null) upsertIds.add(id.asText());
+            JsonNode rowMtime = row.get(ROW_MTIME);
+            if (rowMtime != null && rowMtime.isTextual()) {
+                Instant modified = OffsetDateTime.parse(rowMtime.textValue()).toInstant();
+                if (modified.isAfter(mtime)) mtime = modified;
+            }
+        }
+    }
+
+}
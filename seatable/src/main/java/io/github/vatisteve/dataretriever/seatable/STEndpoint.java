@@ -0,0 +1,182 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STConnection;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STHttpOptions;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STBase;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Resources shared by all connectors of one SeaTable server: {@link HttpClient}, {@link ObjectMapper},
+ * {@link STRequestScheduler}, {@link STSchemaCache} and the base tokens cached per API token
+ * <br />
+ * A cached base token is refreshed in the background once it gets old, and on demand when the server rejects it
+ * <br />
+ * The endpoints are kept for the lifetime of the application, one per server url and {@link HttpClient} settings
+ * (HTTP version and connect timeout): the options applied per request don't create another endpoint, and the
+ * {@link STHttpOptions#getExecutor() executor} is the one given by the first connector
+ */
+@Slf4j
+@Getter
+public class STEndpoint {
+
+    /**
+     * Validity of a base token given by the server
+     */
+    public static final Duration BASE_TOKEN_TTL = Duration.ofDays(3);
+    /**
+     * Age of a base token from which it is refreshed in the background
+     */
+    public static final Duration BASE_TOKEN_REFRESH_AFTER = Duration.ofDays(2);
+
+    private static final Map<EndpointKey, STEndpoint> ENDPOINTS = new ConcurrentHashMap<>();
+
+    private final String url;
+    private final STHttpOptions httpOptions;
+    private final HttpClient client;
+    private final ObjectMapper mapper;
+    @Getter(AccessLevel.PACKAGE)
+    private final STResponseParser responseParser;
+    private final STRequestScheduler scheduler;
+    private final STSchemaCache schemaCache = new STSchemaCache();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, CompletableFuture<CachedBase>> baseTokens = new ConcurrentHashMap<>();
+
+    private STEndpoint(STConnection connectionInfo, STHttpOptions httpOptions) {
+        log.debug("Init endpoint {} with {}", connectionInfo.getUrl(), httpOptions);
+        url = connectionInfo.getUrl();
+        this.httpOptions = httpOptions;
+        client = newHttpClient(httpOptions);
+        mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        responseParser = new STResponseParser(mapper);
+        scheduler = STRequestScheduler.of(connectionInfo.getUrl(), connectionInfo.getRateLimit());
+    }
+
+    public static STEndpoint of(STConnection connectionInfo) {
+        STHttpOptions httpOptions = connectionInfo.getHttpOptions() == null ? STHttpOptions.DEFAULT : connectionInfo.getHttpOptions();
+        EndpointKey key = new EndpointKey(connectionInfo.getUrl(), httpOptions.getVersion(), httpOptions.getConnectTimeout());
+        STEndpoint endpoint = ENDPOINTS.computeIfAbsent(key, k -> new STEndpoint(connectionInfo, httpOptions));
+        if (httpOptions.getExecutor() != null && httpOptions.getExecutor() != endpoint.httpOptions.getExecutor()) {
+            log.warn("Endpoint {} is already created with another executor {}", key.url(), endpoint.httpOptions.getExecutor());
+        }
+        return endpoint;
+    }
+
+    /**
+     * Redirects are not followed, the connections are kept alive and reused by the client
+     */
+    private static HttpClient newHttpClient(STHttpOptions httpOptions) {
+        HttpClient.Builder builder = HttpClient.newBuilder().version(httpOptions.getVersion());
+        if (httpOptions.getConnectTimeout() != null) builder.connectTimeout(httpOptions.getConnectTimeout());
+        if (httpOptions.getExecutor() != null) builder.executor(httpOptions.getExecutor());
+        return builder.build();
+    }
+
+    /**
+     * Cached base token of the {@code apiKey}, requested (blocking) if missing or expired
+     */
+    public STBase getBaseInfo(String apiKey) throws IOException, InterruptedException {
+        try {
+            return getBaseInfoAsync(apiKey).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Couldn't get base info: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public CompletableFuture<STBase> getBaseInfoAsync(String apiKey) {
+        CompletableFuture<CachedBase> cached = baseTokens.compute(apiKey, (k, current) -> {
+            if (current == null || current.isCompletedExceptionally() || (current.isDone() && current.join().isExpired())) {
+                return requestBaseInfo(k);
+            }
+            return current;
+        });
+        CachedBase base = cached.getNow(null);
+        if (base != null && base.shouldRefresh()) refreshBaseInfo(apiKey, base.base());
+        return cached.thenApply(CachedBase::base);
+    }
+
+    /**
+     * Request a new base token unless the {@code stale} one has already been replaced
+     * (concurrent callers share the same request)
+     */
+    public CompletableFuture<STBase> refreshBaseInfo(String apiKey, STBase stale) {
+        return baseTokens.compute(apiKey, (k, current) -> {
+            if (current != null && (!current.isDone()
+                    || (!current.isCompletedExceptionally() && !current.join().base().equals(stale)))) {
+                return current;
+            }
+            log.debug("Refresh the base token of {}", stale == null ? url : stale.name());
+            CompletableFuture<CachedBase> refreshed = requestBaseInfo(k);
+            // keep serving the stale token (if still valid) while refreshing in the background
+            return current == null || current.isCompletedExceptionally() || current.join().isExpired()
+                    ? refreshed : refreshed.exceptionally(e -> current.join());
+        }).thenApply(CachedBase::base);
+    }
+
+    public void invalidate(String apiKey) {
+        baseTokens.remove(apiKey);
+    }
+
+    /**
+     * @see <a href='https://api.seatable.io/reference/getbasetokenwithapitoken'>Get Base token with API token</a>
+     */
+    private CompletableFuture<CachedBase> requestBaseInfo(String apiKey) {
+        URI uri = URI.create(url).resolve("/api/v2.1/dtable/app-access-token/");
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(uri)
+            .header("Accept", "application/json")
+            .header("Authorization", STConnector.stAuth(apiKey))
+            .GET()
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new CompletionException(new IOException("Unexpected response code when getting base info: " + response.statusCode()));
+            }
+            log.trace("Base info response: {}", response.body());
+            try {
+                return new CachedBase(responseToBaseInfo(response.body()), System.nanoTime());
+            } catch (JsonProcessingException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private STBase responseToBaseInfo(String baseInfoInString) throws JsonProcessingException {
+        JsonNode node = mapper.readTree(baseInfoInString);
+        String accessToken = node.get("access_token").asText();
+        String baseUuid = node.get("dtable_uuid").asText();
+        String baseName = node.get("dtable_name").asText();
+        return new STBase(accessToken, baseUuid, baseName);
+    }
+
+    private record EndpointKey(String url, HttpClient.Version version, Duration connectTimeout) {}
+
+    private record CachedBase(STBase base, long loadedAt) {
+        boolean isExpired() {
+            return System.nanoTime() - loadedAt >= BASE_TOKEN_TTL.toNanos();
+        }
+        boolean shouldRefresh() {
+            return System.nanoTime() - loadedAt >= BASE_TOKEN_REFRESH_AFTER.toNanos();
+        }
+    }
+
+}
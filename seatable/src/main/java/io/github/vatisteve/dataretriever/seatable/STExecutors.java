@@ -0,0 +1,49 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors of the connectors: the response parsing runs on a bounded pool, apart from the threads of the
+ * {@link java.net.http.HttpClient}, so that a large page doesn't delay the other requests in flight
+ *
+ * @see io.github.vatisteve.dataretriever.seatable.model.connection.STConnection#getParseExecutor()
+ */
+public final class STExecutors {
+
+    private STExecutors() {}
+
+    /**
+     * Parse pool shared by the connectors without their own parse executor, one daemon thread per processor
+     */
+    public static ExecutorService parseExecutor() {
+        return SharedParseExecutor.INSTANCE;
+    }
+
+    /**
+     * Bounded pool of daemon threads for the response parsing
+     */
+    public static ExecutorService newParseExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "seatable-parser-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+
+    /**
+     * One virtual thread per task, to run many blocking extractions through {@link STBlockingRetriever}
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("seatable-job-", 0).factory());
+    }
+
+    private static final class SharedParseExecutor {
+        private static final ExecutorService INSTANCE = newParseExecutor(Runtime.getRuntime().availableProcessors());
+    }
+
+}
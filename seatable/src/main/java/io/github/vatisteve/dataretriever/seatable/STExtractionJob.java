@@ -0,0 +1,43 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.model.connection.STConnection;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STSqlQueryConnection;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * One table or SQL query of a base, streamed into its sink by the {@link STExtractionOrchestrator}
+ */
+@Value
+@Builder
+public class STExtractionJob {
+
+    /**
+     * Name in the progress and the report, the table name or the SQL query by default
+     */
+    String name;
+    /**
+     * {@link STTableNameConnection} or {@link STSqlQueryConnection}
+     */
+    STConnection connection;
+    STRowSink sink;
+    /**
+     * Jobs of higher priority are started first, the jobs of the same priority in their submission order
+     */
+    int priority;
+    /**
+     * Max duration of the job from its start (not counting the time in the queue), {@code null} for no limit
+     */
+    Duration timeout;
+
+    public String getName() {
+        if (name != null) return name;
+        if (connection instanceof STTableNameConnection table) return table.getTableName();
+        if (connection instanceof STSqlQueryConnection sql) return sql.getQuery();
+        return String.valueOf(connection);
+    }
+
+}
@@ -0,0 +1,263 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.enums.STJobStatus;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STConnection;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STSqlQueryConnection;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.result.STExtractionProgress;
+import io.github.vatisteve.dataretriever.seatable.model.result.STExtractionReport;
+import io.github.vatisteve.dataretriever.seatable.model.result.STJobResult;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Run many extraction jobs (tables or SQL queries of any bases) concurrently, up to {@link #getMaxConcurrentJobs()}
+ * jobs at a time in the order of their priority
+ * <br />
+ * The jobs share the {@link STEndpoint} of their server: http client, base tokens (requested once per API token,
+ * all at the submission) and the request budget of each base, so the concurrent jobs of one base are throttled
+ * together while the other bases proceed. A failed job doesn't stop the others, it is reported in the
+ * {@link STExtractionReport}
+ *
+ * @see STExtractionJob
+ */
+@Slf4j
+public class STExtractionOrchestrator implements AutoCloseable {
+
+    private static final Comparator<QueuedJob> ORDER = Comparator
+            .comparingInt((QueuedJob queued) -> -queued.job().getPriority())
+            .thenComparingLong(QueuedJob::sequence);
+
+    @Getter
+    private final int maxConcurrentJobs;
+    /**
+     * Called with the result of every completed job
+     */
+    @Setter
+    private Consumer<STJobResult> listener;
+    /**
+     * Creation of the connectors, which may wait for a base token
+     */
+    private final ExecutorService setupExecutor = STExecutors.newVirtualThreadExecutor();
+    private final PriorityQueue<QueuedJob> queue = new PriorityQueue<>(ORDER);
+    private final Set<JobSink> running = new HashSet<>();
+    private long sequence;
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong rows = new AtomicLong();
+
+    public STExtractionOrchestrator(int maxConcurrentJobs) {
+        if (maxConcurrentJobs < 1) throw new IllegalArgumentException("maxConcurrentJobs must be positive");
+        this.maxConcurrentJobs = maxConcurrentJobs;
+    }
+
+    /**
+     * Submit the jobs together (so they are ordered by priority as a whole) and wait for all of them
+     * @return Future of the report, completed once every job is done whatever its outcome
+     */
+    public CompletableFuture<STExtractionReport> run(Collection<STExtractionJob> jobs) {
+        long start = System.nanoTime();
+        List<CompletableFuture<STJobResult>> results = submitAll(jobs);
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(done -> new STExtractionReport(results.stream().map(CompletableFuture::join).toList(),
+                        Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    public CompletableFuture<STJobResult> submit(STExtractionJob job) {
+        return submitAll(List.of(job)).get(0);
+    }
+
+    /**
+     * @return Futures of the job results, never completed exceptionally
+     */
+    public List<CompletableFuture<STJobResult>> submitAll(Collection<STExtractionJob> jobs) {
+        jobs.forEach(job -> {
+            Objects.requireNonNull(job.getConnection(), "connection of the extraction job");
+            Objects.requireNonNull(job.getSink(), "sink of the extraction job");
+        });
+        prefetchBaseTokens(jobs);
+        List<CompletableFuture<STJobResult>> results = new ArrayList<>(jobs.size());
+        synchronized (this) {
+            for (STExtractionJob job : jobs) {
+                QueuedJob queued = new QueuedJob(job, sequence++, new CompletableFuture<>());
+                queue.add(queued);
+                results.add(queued.result());
+            }
+            submitted.addAndGet(jobs.size()); // with the queued jobs for a consistent progress
+        }
+        log.debug("{} extraction jobs submitted", jobs.size());
+        startNext();
+        return results;
+    }
+
+    public synchronized STExtractionProgress getProgress() {
+        return new STExtractionProgress(submitted.get(), queue.size(), running.size(), succeeded.get(), failed.get(), rows.get());
+    }
+
+    /**
+     * Cancel the queued jobs, the running jobs stop at their next page
+     */
+    public void cancelAll() {
+        List<QueuedJob> cancelled;
+        synchronized (this) {
+            cancelled = new ArrayList<>(queue);
+            queue.clear();
+            running.forEach(JobSink::cancel);
+        }
+        cancelled.forEach(queued -> complete(queued, new STJobResult(queued.job().getName(), STJobStatus.CANCELLED, 0,
+                Duration.ZERO, new CancellationException("Cancelled before its start"))));
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        setupExecutor.close();
+    }
+
+    /**
+     * Request the base tokens of all API tokens at once instead of one by one at the start of every job
+     */
+    private static void prefetchBaseTokens(Collection<STExtractionJob> jobs) {
+        Set<List<String>> requested = new HashSet<>();
+        for (STExtractionJob job : jobs) {
+            STConnection connection = job.getConnection();
+            if (!requested.add(List.of(String.valueOf(connection.getUrl()), String.valueOf(connection.getApiKey())))) continue;
+            try {
+                STEndpoint.of(connection).getBaseInfoAsync(connection.getApiKey());
+            } catch (RuntimeException e) {
+                log.debug("Couldn't request the base token of {}: {}", connection.getUrl(), e.getMessage());
+            }
+        }
+    }
+
+    private void startNext() {
+        while (true) {
+            QueuedJob queued;
+            JobSink sink;
+            synchronized (this) {
+                if (running.size() >= maxConcurrentJobs || queue.isEmpty()) return;
+                queued = queue.poll();
+                sink = new JobSink(queued.job().getSink());
+                running.add(sink);
+            }
+            start(queued, sink);
+        }
+    }
+
+    private void start(QueuedJob queued, JobSink sink) {
+        STExtractionJob job = queued.job();
+        long start = System.nanoTime();
+        log.debug("Start extraction job {}", job.getName());
+        CompletableFuture<Long> extraction = CompletableFuture.supplyAsync(() -> connector(job.getConnection()), setupExecutor)
+                .thenCompose(connector -> connector.streamData(sink));
+        if (job.getTimeout() != null) {
+            extraction = extraction.orTimeout(job.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        }
+        extraction.whenComplete((count, e) -> {
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            STJobResult result;
+            if (e == null) {
+                result = new STJobResult(job.getName(), STJobStatus.SUCCEEDED, count, elapsed, null);
+            } else {
+                sink.cancel(); // stop a timed out extraction at its next page
+                Throwable cause = e instanceof CompletionException || e instanceof ExecutionException ? e.getCause() : e;
+                STJobStatus status = switch (cause) {
+                    case TimeoutException timeout -> STJobStatus.TIMED_OUT;
+                    case CancellationException cancellation -> STJobStatus.CANCELLED;
+                    default -> STJobStatus.FAILED;
+                };
+                log.warn("Extraction job {} {}: {}", job.getName(), status, cause.getMessage());
+                result = new STJobResult(job.getName(), status, sink.delivered.get(), elapsed, cause);
+            }
+            synchronized (this) {
+                running.remove(sink);
+            }
+            complete(queued, result);
+            startNext();
+        });
+    }
+
+    private void complete(QueuedJob queued, STJobResult result) {
+        (result.isSuccess() ? succeeded : failed).incrementAndGet();
+        if (listener != null) {
+            try {
+                listener.accept(result);
+            } catch (RuntimeException e) {
+                log.warn("Extraction listener failed on job {}: {}", result.name(), e.getMessage(), e);
+            }
+        }
+        queued.result().complete(result);
+    }
+
+    private static STConnector connector(STConnection connection) {
+        try {
+            if (connection instanceof STTableNameConnection table) return new STTableNameQuery(table);
+            if (connection instanceof STSqlQueryConnection sql) return new STSqlQuery(sql);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        throw new IllegalArgumentException("Unsupported connection of the extraction job: " + connection);
+    }
+
+    private record QueuedJob(STExtractionJob job, long sequence, CompletableFuture<STJobResult> result) {}
+
+    /**
+     * Count the delivered rows and stop the job once cancelled
+     */
+    private final class JobSink implements STRowSink {
+
+        private final STRowSink sink;
+        private final AtomicLong delivered = new AtomicLong();
+        private volatile boolean cancelled;
+
+        private JobSink(STRowSink sink) {
+            this.sink = sink;
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void onPage(ArrayNode page) {
+            if (cancelled) throw new CancellationException("Extraction job cancelled");
+            sink.onPage(page);
+            delivered.addAndGet(page.size());
+            rows.addAndGet(page.size());
+        }
+
+        @Override
+        public void onComplete() {
+            if (cancelled) throw new CancellationException("Extraction job cancelled");
+            sink.onComplete();
+        }
+    }
+
+}
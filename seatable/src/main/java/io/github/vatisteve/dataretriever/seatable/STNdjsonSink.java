@@ -0,0 +1,61 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Write the streamed rows as newline-delimited JSON, one row per line as the pages arrive
+ * <br />
+ * The output is flushed on {@link #onComplete()} but not closed
+ *
+ * @see STConnector#streamData(STRowSink)
+ */
+public class STNdjsonSink implements STRowSink {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JsonGenerator generator;
+
+    public STNdjsonSink(OutputStream out) {
+        try {
+            generator = MAPPER.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public STNdjsonSink(WritableByteChannel channel) {
+        this(Channels.newOutputStream(channel));
+    }
+
+    @Override
+    public void onPage(ArrayNode rows) {
+        try {
+            for (JsonNode row : rows) {
+                generator.writeTree(row);
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't write the rows: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
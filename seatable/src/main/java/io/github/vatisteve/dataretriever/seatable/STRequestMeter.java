@@ -0,0 +1,97 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.instrument.STInstrumentation;
+import io.github.vatisteve.dataretriever.seatable.instrument.STRequestEvent;
+import io.github.vatisteve.dataretriever.seatable.instrument.STTags;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measure the http exchanges of a request for the {@link STInstrumentation}: wait for the response headers,
+ * reception of the body and received bytes
+ */
+final class STRequestMeter {
+
+    private STRequestMeter() {
+    }
+
+    /**
+     * @return The {@code handler} reporting every exchange once its body is received (or failed)
+     */
+    static <T> HttpResponse.BodyHandler<T> measuring(HttpResponse.BodyHandler<T> handler, HttpRequest request,
+                                                      STInstrumentation instrumentation, STTags tags) {
+        String endpoint = endpoint(request);
+        AtomicLong mark = new AtomicLong(System.nanoTime());
+        return responseInfo -> {
+            long headersAt = System.nanoTime();
+            long wait = headersAt - mark.getAndSet(headersAt);
+            return new MeasuringSubscriber<>(handler.apply(responseInfo), bytes -> {
+                long now = System.nanoTime();
+                mark.set(now);
+                instrumentation.onRequest(new STRequestEvent(tags, request.method(), endpoint, responseInfo.statusCode(),
+                        wait, now - headersAt, bytes));
+            });
+        };
+    }
+
+    /**
+     * Last significant segment of the path, e.g. {@code rows} of {@code /api-gateway/api/v2/dtables/{uuid}/rows/}
+     */
+    static String endpoint(HttpRequest request) {
+        String path = request.uri().getPath();
+        int end = path.endsWith("/") ? path.length() - 1 : path.length();
+        return path.substring(path.lastIndexOf('/', end - 1) + 1, end);
+    }
+
+    @FunctionalInterface
+    private interface Completion {
+        void received(long bytes);
+    }
+
+    private static final class MeasuringSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpResponse.BodySubscriber<T> downstream;
+        private final Completion completion;
+        private long bytes;
+
+        private MeasuringSubscriber(HttpResponse.BodySubscriber<T> downstream, Completion completion) {
+            this.downstream = downstream;
+            this.completion = completion;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            for (ByteBuffer buffer : item) bytes += buffer.remaining();
+            downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completion.received(bytes);
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completion.received(bytes);
+            downstream.onComplete();
+        }
+    }
+
+}
@@ -0,0 +1,292 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.model.connection.STRateLimit;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Throttle the requests to one SeaTable server: token buckets per base and per API token,
+ * bounded number of in-flight requests (until their body is received) and retries of {@code 429 Too Many Requests} responses
+ * (honouring {@code Retry-After}, otherwise exponential backoff with jitter)
+ * <br />
+ * All connectors built against the same server url share the same scheduler
+ *
+ * @see <a href='https://api.seatable.io/reference/limits'>About SeaTable API limitation</a>
+ */
+@Slf4j
+public class STRequestScheduler {
+
+    private static final Map<String, STRequestScheduler> SCHEDULERS = new ConcurrentHashMap<>();
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    @Getter
+    private final STRateLimit rateLimit;
+    private final Map<String, TokenBucket> baseBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> tokenBuckets = new ConcurrentHashMap<>();
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private int inFlight;
+
+    public STRequestScheduler(STRateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    /**
+     * @param rateLimit Used only by the first call for the {@code url}, {@link STRateLimit#DEFAULT} if {@code null}
+     */
+    public static STRequestScheduler of(String url, STRateLimit rateLimit) {
+        STRequestScheduler scheduler = SCHEDULERS.computeIfAbsent(url,
+                u -> new STRequestScheduler(rateLimit == null ? STRateLimit.DEFAULT : rateLimit));
+        if (rateLimit != null && !rateLimit.equals(scheduler.rateLimit)) {
+            log.warn("Request scheduler of {} is already created with another rate limit {}", url, scheduler.rateLimit);
+        }
+        return scheduler;
+    }
+
+    /**
+     * @param baseUuid  Base of the request, its budget is consumed
+     * @param apiToken  API token of the request, its budget is consumed
+     * @return Future of the response, a {@code 429} response is returned once the retries are exhausted.
+     * Cancelling it aborts the exchange, or drops the request if it isn't sent yet
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpClient client, HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                       String baseUuid, String apiToken) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        attempt(client, request, handler, baseUuid, apiToken, 0, result);
+        return result;
+    }
+
+    private <T> void attempt(HttpClient client, HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                             String baseUuid, String apiToken, int retry, CompletableFuture<HttpResponse<T>> result) {
+        if (result.isDone()) return; // cancelled during the backoff
+        TokenBucket baseBucket = bucket(baseBuckets, baseUuid, rateLimit.getRequestsPerMinutePerBase());
+        TokenBucket tokenBucket = bucket(tokenBuckets, apiToken, rateLimit.getRequestsPerMinutePerToken());
+        long delay = Math.max(baseBucket.reserve(), tokenBucket.reserve());
+        Runnable send = () -> runWithSlot(result, () -> {
+            Runnable release = slotRelease();
+            if (result.isDone()) { // cancelled while waiting for the budget or a slot
+                release.run();
+                return;
+            }
+            try {
+                CompletableFuture<HttpResponse<T>> exchange = client.sendAsync(request, releasing(handler, release));
+                result.whenComplete((res, ex) -> {
+                    if (result.isCancelled()) exchange.cancel(true); // aborts the exchange
+                });
+                exchange.whenComplete((res, ex) -> {
+                    if (ex != null) {
+                        release.run();
+                        result.completeExceptionally(ex);
+                    } else if (res.statusCode() == TOO_MANY_REQUESTS && retry < rateLimit.getMaxRetries()) {
+                        long backoff = backoff(res, retry);
+                        log.debug("Too many requests to {}, retry #{} in {} ms", request.uri().getHost(), retry + 1, TimeUnit.NANOSECONDS.toMillis(backoff));
+                        discard(res);
+                        release.run();
+                        baseBucket.pause(backoff);
+                        tokenBucket.pause(backoff);
+                        attempt(client, request, handler, baseUuid, apiToken, retry + 1, result);
+                    } else if (!result.complete(res)) {
+                        discard(res);
+                    }
+                });
+            } catch (RuntimeException e) {
+                release.run();
+                result.completeExceptionally(e);
+            }
+        });
+        if (delay <= 0) {
+            send.run();
+        } else {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(send);
+        }
+    }
+
+    private void runWithSlot(CompletableFuture<?> result, Runnable task) {
+        synchronized (this) {
+            if (inFlight >= rateLimit.getMaxInFlight()) {
+                if (pending.size() >= rateLimit.getMaxQueued()) {
+                    result.completeExceptionally(new STConnector.STConnectException("Too many queued requests: " + pending.size()));
+                    return;
+                }
+                pending.add(task);
+                return;
+            }
+            inFlight++;
+        }
+        task.run();
+    }
+
+    /**
+     * Release of the slot of one request, which may be run more than once
+     */
+    private Runnable slotRelease() {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) releaseSlot();
+        };
+    }
+
+    /**
+     * The slot is held until the body is received, failed or cancelled (a streamed body is received while it is read)
+     */
+    private static <T> HttpResponse.BodyHandler<T> releasing(HttpResponse.BodyHandler<T> handler, Runnable release) {
+        return responseInfo -> new ReleasingSubscriber<>(handler.apply(responseInfo), release);
+    }
+
+    private void releaseSlot() {
+        Runnable next;
+        synchronized (this) {
+            next = pending.poll();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+        }
+        next.run(); // the slot is handed over to the next request
+    }
+
+    /**
+     * {@code Retry-After} in seconds if provided, otherwise exponential backoff with jitter
+     */
+    private long backoff(HttpResponse<?> response, int retry) {
+        long maxBackoff = rateLimit.getMaxBackoff().toNanos();
+        String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+        if (retryAfter != null) {
+            try {
+                return Math.min(TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim())), maxBackoff);
+            } catch (NumberFormatException e) {
+                log.trace("Unsupported Retry-After value {}", retryAfter);
+            }
+        }
+        long backoff = Math.min(rateLimit.getInitialBackoff().toNanos() << Math.min(retry, 30), maxBackoff);
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream in) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                log.trace("Couldn't close the discarded response: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class ReleasingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpResponse.BodySubscriber<T> downstream;
+        private final Runnable release;
+
+        private ReleasingSubscriber(HttpResponse.BodySubscriber<T> downstream, Runnable release) {
+            this.downstream = downstream;
+            this.release = release;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    release.run();
+                    subscription.cancel();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            try {
+                downstream.onError(throwable);
+            } finally {
+                release.run();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                downstream.onComplete();
+            } finally {
+                release.run();
+            }
+        }
+    }
+
+    private static TokenBucket bucket(Map<String, TokenBucket> buckets, String key, int requestsPerMinute) {
+        return buckets.computeIfAbsent(key == null ? "" : key, k -> new TokenBucket(requestsPerMinute));
+    }
+
+    /**
+     * Token bucket giving out reservations: the tokens may become negative, the caller waits for the returned delay
+     */
+    static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int requestsPerMinute) {
+            this.capacity = Math.max(requestsPerMinute, 1);
+            this.tokensPerNano = capacity / TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * @return Delay in nanoseconds before the reserved request can be sent
+         */
+        synchronized long reserve() {
+            refill();
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+        }
+
+        /**
+         * Hold every next reservation for at least {@code nanos}
+         */
+        synchronized void pause(long nanos) {
+            refill();
+            tokens = Math.min(tokens, -nanos * tokensPerNano);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+
+}
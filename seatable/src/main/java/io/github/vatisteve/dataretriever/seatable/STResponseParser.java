@@ -0,0 +1,104 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static io.github.vatisteve.dataretriever.seatable.STConnector.SEA_TABLE_PROPERTIES_PREFIX;
+
+/**
+ * Read SeaTable rows directly from the response tokens, the SeaTable properties are skipped without being materialized
+ */
+final class STResponseParser {
+
+    private final ObjectMapper mapper;
+    private final JsonNodeFactory nodeFactory;
+
+    STResponseParser(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.nodeFactory = mapper.getNodeFactory();
+    }
+
+    /**
+     * Move the {@code parser} (at the start of the response) to the value of the top level {@code field}
+     * @return {@code false} if the response doesn't contain the field
+     */
+    boolean seekField(JsonParser parser, String field) throws IOException {
+        if (parser.currentToken() == null && parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new STConnector.STConnectException("Invalid response from SeaTable server, expected a JSON object!");
+        }
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            if (field.equals(name)) return true;
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * @param parser The parser at the {@link JsonToken#START_ARRAY} token of the rows
+     */
+    ArrayNode readRows(JsonParser parser) throws IOException {
+        return readRows(parser, null, Set.of());
+    }
+
+    /**
+     * @param parser            The parser at the {@link JsonToken#START_ARRAY} token of the rows
+     * @param template          Template of the rows with all columns, nullable
+     * @param retainedProperties SeaTable properties to keep in the rows (e.g. {@code _id})
+     */
+    ArrayNode readRows(JsonParser parser, STRowTemplate template, Set<String> retainedProperties) throws IOException {
+        return readRows(parser, template, retainedProperties, null);
+    }
+
+    /**
+     * @param projection        Columns to keep, the others are skipped without being materialized, {@code null} for all columns
+     */
+    ArrayNode readRows(JsonParser parser, STRowTemplate template, Set<String> retainedProperties, Set<String> projection) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new STConnector.STConnectException("Invalid response from SeaTable server, rows is not an array!");
+        }
+        ArrayNode rows = nodeFactory.arrayNode();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            rows.add(readRow(parser, template == null ? nodeFactory.objectNode() : template.newRow(), retainedProperties, projection));
+        }
+        return rows;
+    }
+
+    /**
+     * @param parser    The parser at the {@link JsonToken#START_OBJECT} token of a row
+     * @param row       Target of the fields
+     */
+    ObjectNode readRow(JsonParser parser, ObjectNode row, Set<String> retainedProperties, Set<String> projection) throws IOException {
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            boolean retained = retainedProperties.contains(field);
+            if (!retained && (field.startsWith(SEA_TABLE_PROPERTIES_PREFIX) || projection != null && !projection.contains(field))) {
+                parser.skipChildren();
+                continue;
+            }
+            row.set(field, readValue(parser));
+        }
+        return row;
+    }
+
+    JsonNode readValue(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> nodeFactory.textNode(parser.getText());
+            case VALUE_NULL -> nodeFactory.nullNode();
+            case VALUE_TRUE -> nodeFactory.booleanNode(true);
+            case VALUE_FALSE -> nodeFactory.booleanNode(false);
+            default -> mapper.readTree(parser); // numbers and nested structures
+        };
+    }
+
+}
@@ -0,0 +1,23 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.BatchSink;
+
+/**
+ * Receives SeaTable rows page by page, in the order of the table (or the SQL result)
+ * <br />
+ * Pages are delivered one at a time, the sink should not keep the page if the memory usage matters
+ *
+ * @see STConnector#streamData(STRowSink)
+ */
+@FunctionalInterface
+public interface STRowSink extends BatchSink<ArrayNode> {
+
+    void onPage(ArrayNode rows);
+
+    @Override
+    default void onBatch(ArrayNode rows) {
+        onPage(rows);
+    }
+
+}
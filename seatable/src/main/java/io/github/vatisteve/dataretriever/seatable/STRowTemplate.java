@@ -0,0 +1,42 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows pre-filled with every column of the table set to {@code null}, in the column order
+ * <br />
+ * Built once per extract, used by the parser so the fields missing from the response (SeaTable before 4.4) are
+ * {@code null} and the rows share the same field order
+ *
+ * @see <a href='https://forum.seatable.io/t/python-base-list-rows-does-not-return-all-columns/2176/8>Issue with SeaTable version before 4.4</a>
+ */
+final class STRowTemplate {
+
+    private final JsonNodeFactory nodeFactory;
+    private final String[] columns;
+    private final int capacity;
+
+    STRowTemplate(JsonNodeFactory nodeFactory, List<STColumn> columns) {
+        this.nodeFactory = nodeFactory;
+        this.columns = columns.stream().map(STColumn::name).toArray(String[]::new);
+        // room for the columns without rehash
+        this.capacity = (int) (this.columns.length / 0.75f) + 1;
+    }
+
+    ObjectNode newRow() {
+        Map<String, JsonNode> fields = new LinkedHashMap<>(capacity);
+        JsonNode nullNode = nodeFactory.nullNode();
+        for (String column : columns) {
+            fields.put(column, nullNode);
+        }
+        return new ObjectNode(nodeFactory, fields);
+    }
+
+}
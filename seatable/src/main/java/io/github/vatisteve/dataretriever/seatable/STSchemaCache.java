@@ -0,0 +1,94 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STSchema;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Columns of the tables, cached per base uuid and table name
+ * <br />
+ * Once older than the {@link #getTtl() ttl}, the cached schema is still served while it is refreshed in the background
+ */
+@Slf4j
+public class STSchemaCache {
+
+    @Getter
+    @Setter
+    private Duration ttl = Duration.ofMinutes(5);
+    private final Map<TableKey, CompletableFuture<STSchema>> schemas = new ConcurrentHashMap<>();
+    private final Set<TableKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param loader Request the columns from the server, called only if the schema is missing or old
+     */
+    public CompletableFuture<STSchema> get(String baseUuid, String tableName, Supplier<CompletableFuture<List<STColumn>>> loader) {
+        TableKey key = new TableKey(baseUuid, tableName);
+        CompletableFuture<STSchema> cached = schemas.compute(key, (k, current) ->
+                current == null || current.isCompletedExceptionally() ? load(loader, null) : current);
+        STSchema schema = cached.getNow(null);
+        if (schema != null && System.nanoTime() - schema.loadedAt() >= ttl.toNanos()) {
+            refresh(key, schema, loader);
+        }
+        return cached;
+    }
+
+    public void invalidate(String baseUuid, String tableName) {
+        schemas.remove(new TableKey(baseUuid, tableName));
+    }
+
+    public void invalidateAll() {
+        schemas.clear();
+    }
+
+    private void refresh(TableKey key, STSchema stale, Supplier<CompletableFuture<List<STColumn>>> loader) {
+        if (!refreshing.add(key)) return;
+        log.debug("Refresh the schema of table {}", key.tableName());
+        load(loader, stale).whenComplete((schema, e) -> {
+            if (e != null) {
+                log.warn("Couldn't refresh the schema of table {}: {}", key.tableName(), e.getMessage());
+                schema = new STSchema(stale.columns(), stale.hash(), stale.version(), System.nanoTime());
+            }
+            STSchema refreshed = schema;
+            // an invalidated schema is not put back
+            schemas.computeIfPresent(key, (k, current) -> CompletableFuture.completedFuture(refreshed));
+            refreshing.remove(key);
+        });
+    }
+
+    private static CompletableFuture<STSchema> load(Supplier<CompletableFuture<List<STColumn>>> loader, STSchema previous) {
+        return loader.get().thenApply(columns -> {
+            String hash = hash(columns);
+            int version = previous == null ? 1 : previous.version() + (hash.equals(previous.hash()) ? 0 : 1);
+            return new STSchema(List.copyOf(columns), hash, version, System.nanoTime());
+        });
+    }
+
+    static String hash(List<STColumn> columns) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (STColumn column : columns) {
+                digest.update((column.key() + '\u0000' + column.name() + '\u0000' + column.type() + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record TableKey(String baseUuid, String tableName) {}
+
+}
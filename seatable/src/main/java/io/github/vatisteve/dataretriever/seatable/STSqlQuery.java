@@ -1,20 +1,22 @@
 package io.github.vatisteve.dataretriever.seatable;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import io.github.vatisteve.dataretriever.seatable.model.connection.STConnection;
 import io.github.vatisteve.dataretriever.seatable.model.connection.STSqlQueryConnection;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import io.github.vatisteve.dataretriever.seatable.model.result.STColumnarResult;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author tinhnv - Jul 27 2024
@@ -24,90 +26,209 @@ import java.util.concurrent.CompletableFuture;
 @Getter
 public class STSqlQuery extends STConnector {
 
+    /**
+     * Max number of rows returned by one SQL query
+     */
+    public static final int SQL_ROW_LIMIT = 10000;
+    private static final Pattern LIMIT_CLAUSE = Pattern.compile(
+            "\\s+LIMIT\\s+(\\d+)(?:\\s*,\\s*(\\d+))?(?:\\s+OFFSET\\s+(\\d+))?\\s*$", Pattern.CASE_INSENSITIVE);
+
     private final STSqlQueryConnection connectionInfo;
+    private final STSqlResultCache resultCache;
+    @Getter(AccessLevel.NONE)
+    private volatile JsonNode resultMetadata;
+    @Getter(AccessLevel.NONE)
+    private volatile STColumnPlan resultPlan;
 
     public STSqlQuery(STSqlQueryConnection connectionInfo) throws IOException, InterruptedException {
+        this(connectionInfo, null);
+    }
+
+    /**
+     * @param resultCache Cache of the results shared with other queries, {@code null} to always request the server
+     */
+    public STSqlQuery(STSqlQueryConnection connectionInfo, STSqlResultCache resultCache) throws IOException, InterruptedException {
         super(connectionInfo);
         this.connectionInfo = connectionInfo;
+        this.resultCache = resultCache;
     }
 
+    /**
+     * A cached result is delivered as one page, copied so that the sink can modify it
+     */
     @Override
-    protected CompletableFuture<ArrayNode> requestData() {
-        String urlFormat = "%s%s%s/sql";
-        URI uri = URI.create(String.format(urlFormat,
-                connectionInfo.getUrl(), connectionInfo.getVersion().getTablePath(), baseInfo.uuid()
-        ));
-        ObjectNode queryBody = mapper.createObjectNode()
-            .put("sql", connectionInfo.getQuery());
-        if (connectionInfo.getVersion().isSupportConvertKeys()) {
-            queryBody.put("convert_keys", true);
+    protected CompletableFuture<Long> requestData(STRowSink sink) {
+        if (resultCache == null) return requestServer(sink);
+        return resultCache.get(baseInfo.uuid(), connectionInfo.getQuery(), connectionInfo.getVersion().isSupportConvertKeys(),
+                connectionInfo.isAutoPaging(), connectionInfo.isPositionalRows(), () -> {
+                    ArrayNode rows = mapper.createArrayNode();
+                    return requestServer(rows::addAll).thenApply(count -> rows);
+                })
+            .thenApply(rows -> {
+                ArrayNode page = rows.deepCopy();
+                sink.onPage(page);
+                return (long) page.size();
+            });
+    }
+
+    private CompletableFuture<Long> requestServer(STRowSink sink) {
+        if (connectionInfo.isAutoPaging()) return requestAllPages(sink);
+        return requestSql(connectionInfo.getQuery())
+            .thenApplyAsync(parsing(this::detachResponse), parseExecutor)
+            .thenApply(data -> {
+                if (data.size() >= SQL_ROW_LIMIT) {
+                    log.warn("SQL result reaches the server row limit {}, it may be truncated. Consider the auto paging", SQL_ROW_LIMIT);
+                }
+                sink.onPage(data);
+                return (long) data.size();
+            });
+    }
+
+    /**
+     * Split the query into pages of {@code LIMIT pageSize OFFSET n}, within the range of its own {@code LIMIT} clause if any
+     * <br />
+     * NOTE: the query should have a stable {@code ORDER BY}, otherwise the server may return overlapping pages
+     */
+    private CompletableFuture<Long> requestAllPages(STRowSink sink) {
+        String statement = statement();
+        long offset = 0;
+        long maxOffset = Long.MAX_VALUE;
+        Matcher limitClause = LIMIT_CLAUSE.matcher(statement);
+        if (limitClause.find()) {
+            long limit;
+            if (limitClause.group(2) != null) { // LIMIT offset, limit
+                offset = Long.parseLong(limitClause.group(1));
+                limit = Long.parseLong(limitClause.group(2));
+            } else {
+                limit = Long.parseLong(limitClause.group(1));
+                offset = limitClause.group(3) == null ? 0 : Long.parseLong(limitClause.group(3));
+            }
+            maxOffset = offset + limit;
+            statement = statement.substring(0, limitClause.start());
         }
-        HttpRequest request = HttpRequest.newBuilder(uri)
-            .header("Accept", "application/json")
-            .header("Content-Type", "application/json")
-            .header("Authorization", stAuth(baseInfo.token()))
-            .POST(HttpRequest.BodyPublishers.ofString(queryBody.toString()))
-            .build();
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-            .thenApply(res -> {
-                if (res.statusCode() == 200) return res;
-                throw handleErrorResponse(res);
-            })
-            .thenApply(HttpResponse::body)
-            .thenApply(this::detachResponse);
+        int pageSize = connectionInfo.getPageSize() > 0 ? Math.min(connectionInfo.getPageSize(), SQL_ROW_LIMIT) : SQL_ROW_LIMIT;
+        int parallelism = Math.max(connectionInfo.getParallelism(), 1);
+        log.debug("Querying SQL by pages of {} rows from offset {}, {} pages in parallel", pageSize, offset, parallelism);
+        String pageStatement = statement;
+        STPageRequest pageRequest = (o, l) -> parse(requestSql(pageStatement + " LIMIT " + l + " OFFSET " + o), this::detachResponse);
+        return processPagesInParallel(sink, pageRequest, pageSize, parallelism, offset, maxOffset).toCompletableFuture();
     }
 
     @Override
-    protected ArrayNode detachResponse(String response) {
-        try {
-            JsonNode res = mapper.readTree(response);
-            JsonNode isJoinStatementNode = res.get("is_join_stmt");
-            JsonNode resultNode = res.get("results");
-            if (!resultNode.isArray()) throw new STConnectException("Invalid response from SeaTable server, results is not an array!");
-            if (!isJoinStatementNode.isNull() && isJoinStatementNode.asBoolean()) {
-                return joinStatementResult(resultNode.elements(), res.get("metadata"));
+    protected ArrayNode detachResponse(InputStream response) {
+        try (JsonParser parser = mapper.createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new STConnectException("Invalid response from SeaTable server, expected a JSON object!");
+            }
+            boolean isJoinStatement = false;
+            JsonNode metadata = null;
+            ArrayNode results = null;
+            boolean assembled = false;
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "is_join_stmt" -> isJoinStatement = token == JsonToken.VALUE_TRUE;
+                    case "metadata" -> metadata = mapper.readTree(parser);
+                    case "results" -> {
+                        if (token != JsonToken.START_ARRAY) throw new STConnectException("Invalid response from SeaTable server, results is not an array!");
+                        if (isJoinStatement && metadata != null) {
+                            // single pass, the rows are assembled while they are read
+                            results = columnPlan(metadata, true).readRows(parser, responseParser, mapper.getNodeFactory(), connectionInfo.isPositionalRows());
+                            assembled = true;
+                        } else {
+                            results = responseParser.readRows(parser);
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
             }
-            return sqlQueryStatementResult(resultNode.elements());
-        } catch (JsonProcessingException e) {
+            if (results == null) throw new STConnectException("Invalid response from SeaTable server, results not found!");
+            if (isJoinStatement && !assembled) {
+                if (metadata == null) throw new STConnectException("Invalid response from SeaTable server, metadata of the join statement not found!");
+                return columnPlan(metadata, true).assemble(results, mapper.getNodeFactory(), connectionInfo.isPositionalRows());
+            }
+            if (!isJoinStatement && metadata != null) columnPlan(metadata, false);
+            return results;
+        } catch (IOException e) {
             log.error("Error occurred when processing JSON data: {}", e.getMessage(), e);
-            throw new STConnectException("Error occurred when processing JSON data: " + e.getMessage());
+            throw new STConnectException("Error occurred when processing JSON data: " + e.getMessage(), e);
         }
     }
 
-    private ArrayNode joinStatementResult(Iterator<JsonNode> resultNodes, JsonNode metadata) {
-        Map<String, String> metadataMap = new HashMap<>();
-        metadata.elements().forEachRemaining(metadataNode -> {
-            String metadataColumnName = metadataNode.get("name").textValue();
-            if (metadataColumnName.startsWith(SEA_TABLE_PROPERTIES_PREFIX)) return; // break the forEach loop
-            metadataMap.put(
-                metadataNode.get("id").textValue(),
-                // identity format: table_name.column_name
-                metadataNode.get("table_name").textValue() + "." + metadataColumnName
-            );
-        });
-        ArrayNode result = mapper.createArrayNode();
-        while (resultNodes.hasNext()) {
-            JsonNode row = resultNodes.next();
-            ObjectNode data = mapper.createObjectNode();
-            metadataMap.forEach((colKey, colName) -> data.set(colName, row.get(colKey)));
-            result.add(data);
-        }
-        return result;
+    /**
+     * The query without its trailing {@code ;}
+     */
+    private String statement() {
+        String statement = connectionInfo.getQuery().strip();
+        return statement.endsWith(";") ? statement.substring(0, statement.length() - 1) : statement;
     }
 
-    private ArrayNode sqlQueryStatementResult(Iterator<JsonNode> resultNodes) {
-        ArrayNode result = mapper.createArrayNode();
-        Set<String> keysToRemove = new HashSet<>();
-        resultNodes.forEachRemaining(n -> {
-            n = removeSeaTableProperties(n, keysToRemove);
-            result.add(n);
-        });
-        return result;
+    /**
+     * Columns of the result, described by its metadata: the result of the first row is requested unless a page of the
+     * query has already been received
+     */
+    public CompletableFuture<List<STColumn>> getColumnsAsync() {
+        STColumnPlan plan = resultPlan;
+        if (plan != null) return CompletableFuture.completedFuture(plan.columns());
+        String statement = statement();
+        Matcher limitClause = LIMIT_CLAUSE.matcher(statement);
+        if (limitClause.find()) statement = statement.substring(0, limitClause.start());
+        return parse(requestSql(statement + " LIMIT 1"), this::detachResponse).thenApply(this::columnsOf);
+    }
+
+    /**
+     * The plan of the metadata is reused by the next pages of the same query
+     */
+    private STColumnPlan columnPlan(JsonNode metadata, boolean join) {
+        STColumnPlan plan = resultPlan;
+        if (plan == null || !metadata.equals(resultMetadata)) {
+            plan = STColumnPlan.of(metadata, join, join || !connectionInfo.getVersion().isSupportConvertKeys());
+            resultMetadata = metadata;
+            resultPlan = plan;
+        }
+        return plan;
     }
 
     @Override
     protected CompletableFuture<String> transformData() {
-        return requestData().thenApply(ArrayNode::toString);
+        return requestData().thenApply(this::transform);
+    }
+
+    /**
+     * Stream the result into typed column vectors, the columns are described by the metadata of the response
+     * <br />
+     * NOTE: not available for the {@link STSqlQueryConnection#isPositionalRows() positional rows}
+     */
+    public CompletableFuture<STColumnarResult> getColumnarData() {
+        if (connectionInfo.isPositionalRows()) {
+            return CompletableFuture.failedFuture(new STConnectException("Columnar data is not available for the positional rows"));
+        }
+        List<STColumnarSink> sink = new ArrayList<>(1);
+        return streamData(new STRowSink() {
+            @Override
+            public void onPage(ArrayNode rows) {
+                if (sink.isEmpty()) sink.add(new STColumnarSink(columnsOf(rows)));
+                sink.getFirst().onPage(rows);
+            }
+
+            @Override
+            public void onComplete() {
+                if (sink.isEmpty()) sink.add(new STColumnarSink(List.of()));
+                sink.getFirst().onComplete();
+            }
+        }).thenApply(count -> sink.getFirst().getResult());
+    }
+
+    /**
+     * Columns of the metadata, or of the fields of the first row when the result is cached (types unknown)
+     */
+    private List<STColumn> columnsOf(ArrayNode rows) {
+        STColumnPlan plan = resultPlan;
+        if (plan != null) return plan.columns();
+        List<STColumn> columns = new ArrayList<>();
+        if (!rows.isEmpty()) rows.get(0).fieldNames().forEachRemaining(name -> columns.add(new STColumn(name, null, name, null, null)));
+        return columns;
     }
 
 }
@@ -0,0 +1,223 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Results of the SQL queries, cached per base uuid and normalized SQL text, shared by the {@link STSqlQuery} given the cache
+ * <br />
+ * Concurrent callers of the same query share one request. The least recently used results are evicted once the
+ * (estimated) size of the cached results exceeds {@link #getMaxBytes() maxBytes}. Once older than the
+ * {@link #getTtl() ttl}, a result is still served during {@link #getStaleWhileRevalidate() staleWhileRevalidate}
+ * while it is requested again in the background
+ *
+ * @see STSqlQuery#STSqlQuery(io.github.vatisteve.dataretriever.seatable.model.connection.STSqlQueryConnection, STSqlResultCache)
+ */
+@Slf4j
+public class STSqlResultCache {
+
+    @Getter
+    @Setter
+    private Duration ttl = Duration.ofMinutes(1);
+    /**
+     * {@link Duration#ZERO} to request the expired results again before serving them
+     */
+    @Getter
+    @Setter
+    private Duration staleWhileRevalidate = Duration.ZERO;
+    @Getter
+    private final long maxBytes;
+    private long bytes;
+    private final Map<QueryKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public STSqlResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param convertKeys   The {@code convert_keys} flag of the request
+     * @param autoPaging    Whether the result is paged beyond the server row limit
+     * @param positionalRows Whether the rows of a join statement are arrays of values
+     * @param loader        Request the result from the server, called only if the result is missing or expired
+     * @return Future of the cached result, it must not be modified
+     */
+    public CompletableFuture<ArrayNode> get(String baseUuid, String sql, boolean convertKeys, boolean autoPaging,
+                                            boolean positionalRows, Supplier<CompletableFuture<ArrayNode>> loader) {
+        QueryKey key = new QueryKey(baseUuid, normalize(sql), convertKeys, autoPaging, positionalRows);
+        Entry entry;
+        boolean load = false;
+        boolean refresh = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.isLoaded()) {
+                long age = System.nanoTime() - entry.loadedAt;
+                if (age >= ttl.toNanos() + staleWhileRevalidate.toNanos()) {
+                    remove(key, entry);
+                    entry = null;
+                } else if (age >= ttl.toNanos() && !entry.refreshing) {
+                    entry.refreshing = refresh = true;
+                }
+            }
+            if (entry == null) {
+                entry = new Entry(new CompletableFuture<>());
+                entries.put(key, entry);
+                load = true;
+            }
+        }
+        if (load) {
+            log.trace("SQL result cache miss: {}", key.sql());
+            load(key, entry, null, loader);
+        } else if (refresh) {
+            log.debug("Revalidate the SQL result of {}", key.sql());
+            Entry stale = entry;
+            load(key, new Entry(new CompletableFuture<>()), stale, loader).whenComplete((rows, e) -> {
+                if (e == null) return;
+                log.warn("Couldn't revalidate the SQL result of {}: {}", key.sql(), e.getMessage());
+                synchronized (this) {
+                    stale.refreshing = false;
+                }
+            });
+        }
+        return entry.future;
+    }
+
+    /**
+     * Estimated size of the cached results
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @param replaced The stale entry revalidated by the new {@code entry}, {@code null} for a missing result
+     */
+    private CompletableFuture<ArrayNode> load(QueryKey key, Entry entry, Entry replaced,
+                                              Supplier<CompletableFuture<ArrayNode>> loader) {
+        CompletableFuture<ArrayNode> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        return loaded.whenComplete((rows, e) -> {
+            long weight = e == null ? weigh(rows) : 0;
+            synchronized (this) {
+                Entry current = entries.get(key);
+                if (e != null) {
+                    if (current == entry) entries.remove(key);
+                } else if (current != null && (current == entry || current == replaced)) { // not invalidated meanwhile
+                    bytes += weight - current.bytes;
+                    entry.loadedAt = System.nanoTime();
+                    entry.bytes = weight;
+                    entry.loaded = true;
+                    entries.put(key, entry);
+                    evict();
+                }
+            }
+            if (e != null) entry.future.completeExceptionally(e);
+            else entry.future.complete(rows);
+        });
+    }
+
+    /**
+     * Remove the least recently used results, the requests in flight are kept
+     */
+    private void evict() {
+        Iterator<Entry> lru = entries.values().iterator();
+        while (bytes > maxBytes && lru.hasNext()) {
+            Entry entry = lru.next();
+            if (!entry.isLoaded()) continue;
+            lru.remove();
+            bytes -= entry.bytes;
+        }
+    }
+
+    private void remove(QueryKey key, Entry entry) {
+        entries.remove(key);
+        bytes -= entry.bytes;
+    }
+
+    /**
+     * Collapse the whitespaces outside the quoted literals and identifiers, strip the trailing {@code ;}
+     */
+    static String normalize(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                normalized.append(c);
+                if (c == quote) quote = 0;
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            } else {
+                if (space && !normalized.isEmpty()) normalized.append(' ');
+                space = false;
+                if (c == '\'' || c == '"' || c == '`') quote = c;
+                normalized.append(c);
+            }
+        }
+        int end = normalized.length();
+        while (end > 0 && (normalized.charAt(end - 1) == ';' || normalized.charAt(end - 1) == ' ')) end--;
+        normalized.setLength(end);
+        return normalized.toString();
+    }
+
+    /**
+     * Rough heap size of the node tree
+     */
+    static long weigh(JsonNode node) {
+        return switch (node.getNodeType()) {
+            case OBJECT -> {
+                long weight = 48;
+                for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    weight += 48 + 2L * field.getKey().length() + weigh(field.getValue());
+                }
+                yield weight;
+            }
+            case ARRAY -> {
+                long weight = 32;
+                for (JsonNode element : node) weight += 8 + weigh(element);
+                yield weight;
+            }
+            case STRING -> 40 + 2L * node.textValue().length();
+            default -> 16;
+        };
+    }
+
+    private record QueryKey(String baseUuid, String sql, boolean convertKeys, boolean autoPaging, boolean positionalRows) {}
+
+    private static final class Entry {
+        private final CompletableFuture<ArrayNode> future;
+        private long loadedAt;
+        private long bytes;
+        private boolean loaded;
+        private boolean refreshing;
+
+        private Entry(CompletableFuture<ArrayNode> future) {
+            this.future = future;
+        }
+
+        private boolean isLoaded() {
+            return loaded;
+        }
+    }
+
+}
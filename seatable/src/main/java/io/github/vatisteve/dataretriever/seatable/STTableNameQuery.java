@@ -1,5 +1,6 @@
 package io.github.vatisteve.dataretriever.seatable;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -7,20 +8,26 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
 import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STSchema;
+import io.github.vatisteve.dataretriever.seatable.model.result.STCheckpoint;
+import io.github.vatisteve.dataretriever.seatable.model.result.STColumnarResult;
+import io.github.vatisteve.dataretriever.seatable.store.STCheckpointStore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
 
 import static io.github.vatisteve.dataretriever.seatable.enums.STVersion.BEFORE_4_4;
 
@@ -36,6 +43,18 @@ public class STTableNameQuery extends STConnector {
 
     private final STTableNameConnection connectionInfo;
 
+    /**
+     * Columns of the table, to fill the missing fields of the rows (SeaTable before 4.4)
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile STRowTemplate rowTemplate;
+
+    /**
+     * Columns kept while parsing the rows, {@code null} for all columns
+     */
+    @Getter(AccessLevel.NONE)
+    private final Set<String> projection;
+
     public STTableNameQuery(STTableNameConnection connectionInfo) throws IOException, InterruptedException {
         this(connectionInfo, 1000); /* limit of SeaTable api response */
     }
@@ -44,126 +63,339 @@ public class STTableNameQuery extends STConnector {
         super(connectionInfo);
         this.connectionInfo = connectionInfo;
         this.defaultBatchSize = defaultBatchSize;
+        this.projection = connectionInfo.hasProjection() ? new LinkedHashSet<>(connectionInfo.getColumns()) : null;
     }
 
     @Override
-    protected CompletableFuture<ArrayNode> requestData() {
-        CompletableFuture<ArrayNode> response;
-        if (connectionInfo.shouldQueryAll()) {
-            log.debug("Querying all data from table {}", connectionInfo.getTableName());
-            response = doRequest(0, defaultBatchSize).thenCompose(data -> {
-                log.trace("Request data for each batch of {}. Start!", defaultBatchSize);
-                if (data.isNull() || data.isEmpty()) return CompletableFuture.completedFuture(data);
-                log.trace("Request data for each batch of {}. Second batch!", defaultBatchSize);
-                return processNextBatchWithoutLimit(data, defaultBatchSize);
-            });
+    protected CompletableFuture<Long> requestData(STRowSink sink) {
+        return requestData(sink, null);
+    }
+
+    /**
+     * Stream the data as {@link #streamData(STRowSink)} does, resumed from the checkpoint of a previous run of the same
+     * extraction which failed or was interrupted
+     * <br />
+     * The position after every delivered page is saved to the {@code checkpoints}, and removed once the extraction is
+     * completed. The rows delivered by the previous runs are not delivered again, the sink must have kept them
+     * (e.g. appended to a file)
+     * @return Future of the number of rows of the whole extraction, including the previous runs
+     */
+    public CompletableFuture<Long> streamData(STRowSink sink, STCheckpointStore checkpoints) {
+        String tableName = connectionInfo.getTableName();
+        String fingerprint = fingerprint();
+        STCheckpoint checkpoint = checkpoints.load(baseInfo.uuid(), tableName).orElse(null);
+        if (checkpoint != null && !fingerprint.equals(checkpoint.fingerprint())) {
+            log.warn("Checkpoint of table {} is ignored, it was saved by another extraction: {}", tableName, checkpoint.fingerprint());
+            checkpoint = null;
+        }
+        if (checkpoint != null) {
+            log.info("Resume the extraction of table {} after {} rows", tableName, checkpoint.delivered());
+        }
+        long resumed = checkpoint == null ? 0 : checkpoint.delivered();
+        CheckpointSink checkpointSink = new CheckpointSink(sink, checkpoints, fingerprint, checkpoint);
+        return requestData(checkpointSink, checkpoint).thenApply(count -> {
+            sink.onComplete();
+            checkpoints.remove(baseInfo.uuid(), tableName);
+            return resumed + count;
+        });
+    }
+
+    /**
+     * @param resume    Checkpoint to resume from, {@code null} to start from the beginning
+     */
+    private CompletableFuture<Long> requestData(STRowSink sink, STCheckpoint resume) {
+        if (!BEFORE_4_4.equals(connectionInfo.getVersion())) return requestPages(sink, resume);
+        return rowTemplate().thenCompose(template -> {
+            this.rowTemplate = template;
+            return requestPages(sink, resume);
+        });
+    }
+
+    private CompletableFuture<Long> requestPages(STRowSink sink, STCheckpoint resume) {
+        CompletionStage<Long> response;
+        if (connectionInfo.shouldQueryByKey()) {
+            if (connectionInfo.getViewName() != null) {
+                return CompletableFuture.failedFuture(new STConnectException("The view of table " + connectionInfo.getTableName()
+                        + " can't be queried by key, the SQL api doesn't support views"));
+            }
+            long maxRows = connectionInfo.shouldQueryAll() ? Long.MAX_VALUE : connectionInfo.getLimit();
+            log.debug("Querying data from table {} ordered by key {}", connectionInfo.getTableName(), connectionInfo.getKeyColumn());
+            if (resume == null) {
+                response = processNextBatchByKey(sink, null, maxRows, 0);
+            } else {
+                response = processNextBatchByKey(sink, resume.lastKey(), maxRows - resume.delivered(), 0);
+            }
         } else {
-            long offset = connectionInfo.getStartRow();
-            int limit = connectionInfo.getLimit();
-            log.debug("Querying data from table {} with offset {} and limit {}", connectionInfo.getTableName(), offset, limit);
-            if (limit - offset <= defaultBatchSize) {
-                response = doRequest(offset, limit);
+            long startRow = connectionInfo.shouldQueryAll() ? 0 : connectionInfo.getStartRow();
+            long maxOffset = connectionInfo.shouldQueryAll() ? Long.MAX_VALUE : startRow + connectionInfo.getLimit();
+            long offset = resume == null ? startRow : resume.offset();
+            if (connectionInfo.shouldQueryInParallel()) {
+                log.debug("Querying data from table {} with offset {} and {} pages in parallel",
+                        connectionInfo.getTableName(), offset, connectionInfo.getParallelism());
+                response = processBatchesInParallel(sink, offset, maxOffset);
+            } else if (connectionInfo.shouldQueryAll()) {
+                log.debug("Querying all data from table {} from offset {}", connectionInfo.getTableName(), offset);
+                response = processNextBatchWithoutLimit(sink, offset, 0);
             } else {
-                response = doRequest(offset, defaultBatchSize)
-                    .thenCompose(data -> processNextBatchWithLimit(data, offset + defaultBatchSize, offset + limit));
+                log.debug("Querying data from table {} with offset {} and limit {}", connectionInfo.getTableName(), offset, maxOffset - offset);
+                response = processNextBatchWithLimit(sink, offset, maxOffset, 0);
             }
         }
-        return response;
+        return response.toCompletableFuture();
     }
 
     @Override
     protected CompletableFuture<String> transformData() {
-        CompletableFuture<ArrayNode> nodes = BEFORE_4_4.equals(connectionInfo.getVersion())
-                    ? requestData().thenApply(this::addNullColumns)
-                    : requestData();
-        return nodes.thenApply(ArrayNode::toString);
+        return requestData().thenApply(this::transform);
     }
 
     /**
-     * Connect and request SeaTable data
-     * @see <a href='https://forum.seatable.io/t/python-base-list-rows-does-not-return-all-columns/2176/8>Issue with SeaTable version before 4.4</a>
+     * Stream the table into typed column vectors, far more compact than the {@link ArrayNode} of rows
      */
-    private ArrayNode addNullColumns(ArrayNode nodes) {
-        Set<String> columns = getColumns().stream().map(STColumn::name).collect(Collectors.toSet());
-        nodes.forEach(node -> {
-            Set<String> missingColumns = new HashSet<>(columns);
-            node.fieldNames().forEachRemaining(missingColumns::remove);
-            missingColumns.forEach(c -> ((ObjectNode) node).set(c, mapper.nullNode()));
+    public CompletableFuture<STColumnarResult> getColumnarData() {
+        return getColumnsAsync().thenCompose(columns -> {
+            STColumnarSink sink = new STColumnarSink(projectedColumns(columns));
+            return streamData(sink).thenApply(count -> sink.getResult());
         });
-        return nodes;
     }
 
-    private CompletionStage<ArrayNode> processNextBatchWithoutLimit(ArrayNode nodes, int offset) {
+    /**
+     * Template of the rows missing columns (SeaTable before 4.4), {@code null} if the columns are not available
+     */
+    private CompletableFuture<STRowTemplate> rowTemplate() {
+        return getColumnsAsync()
+                .thenApply(columns -> new STRowTemplate(mapper.getNodeFactory(), projectedColumns(columns)))
+                .exceptionally(e -> {
+                    log.error("Couldn't get the columns of table {}: {}", connectionInfo.getTableName(), e.getMessage(), e);
+                    return null;
+                });
+    }
+
+    /**
+     * Columns of the table kept by the projection, in the table order
+     */
+    private List<STColumn> projectedColumns(List<STColumn> columns) {
+        if (projection == null) return columns;
+        return columns.stream().filter(column -> projection.contains(column.name())).toList();
+    }
+
+    private CompletionStage<Long> processNextBatchWithoutLimit(STRowSink sink, long offset, long delivered) {
         log.trace("Request next batch with offset {}", offset);
         return doRequest(offset, defaultBatchSize).thenCompose(data -> {
-            if (data.isNull() || data.isEmpty()) return CompletableFuture.completedFuture(nodes);
+            if (data.isNull() || data.isEmpty()) return CompletableFuture.completedFuture(delivered);
             log.trace("Continue to next batch with offset {}", offset);
-            nodes.addAll(data);
-            return processNextBatchWithoutLimit(nodes, offset + defaultBatchSize);
+            sink.onPage(data);
+            return processNextBatchWithoutLimit(sink, offset + defaultBatchSize, delivered + data.size());
         });
     }
 
-    private CompletionStage<ArrayNode> processNextBatchWithLimit(ArrayNode nodes, long offset, long maxOffset) {
+    private CompletionStage<Long> processNextBatchWithLimit(STRowSink sink, long offset, long maxOffset, long delivered) {
         log.trace("Request next batch with offset {}, maxOffset {}", offset, maxOffset);
-        if (offset >= maxOffset) return CompletableFuture.completedFuture(nodes);
-        int batchSize = (int) (offset + defaultBatchSize < maxOffset ? defaultBatchSize : maxOffset);
-        return doRequest(offset, batchSize).thenCompose(data -> {
-            if (data.isNull() || data.isEmpty()) return CompletableFuture.completedFuture(nodes);
+        if (offset >= maxOffset) return CompletableFuture.completedFuture(delivered);
+        return doRequest(offset, pageSize(defaultBatchSize, offset, maxOffset)).thenCompose(data -> {
+            if (data.isNull() || data.isEmpty()) return CompletableFuture.completedFuture(delivered);
             log.trace("Continue to next batch with offset {} to maxOffset {}", offset, maxOffset);
-            nodes.addAll(data);
-            return processNextBatchWithLimit(nodes, offset + defaultBatchSize, maxOffset);
+            sink.onPage(data);
+            return processNextBatchWithLimit(sink, offset + defaultBatchSize, maxOffset, delivered + data.size());
+        });
+    }
+
+    /**
+     * Keep up to {@link STTableNameConnection#getParallelism()} pages in flight
+     */
+    private CompletionStage<Long> processBatchesInParallel(STRowSink sink, long offset, long maxOffset) {
+        int pages = connectionInfo.getParallelism();
+        long rowCountHint = connectionInfo.getRowCountHint();
+        if (rowCountHint > 0) {
+            // one more page than the hint to detect the end of the table (or rows added in the meantime)
+            long expectedPages = Math.max(rowCountHint - offset, 0) / defaultBatchSize + 1;
+            pages = (int) Math.min(pages, expectedPages);
+        }
+        return processPagesInParallel(sink, this::doRequest, defaultBatchSize, pages, offset, maxOffset);
+    }
+
+    /**
+     * Keyset pagination through the SQL api, the cost of every page is the same whatever the position in the table
+     * @param lastKey   Key of the last delivered row, {@code null} for the first page (which may skip {@code startRow} rows)
+     */
+    private CompletionStage<Long> processNextBatchByKey(STRowSink sink, JsonNode lastKey, long remaining, long delivered) {
+        if (remaining <= 0) return CompletableFuture.completedFuture(delivered);
+        int pageSize = (int) Math.min(defaultBatchSize, remaining);
+        String keyColumn = connectionInfo.getKeyColumn();
+        StringBuilder sql = new StringBuilder("SELECT ").append(selectList(keyColumn))
+                .append(" FROM ").append(sqlIdentifier(connectionInfo.getTableName()));
+        if (lastKey != null) sql.append(" WHERE ").append(sqlIdentifier(keyColumn)).append(" > ").append(sqlLiteral(lastKey));
+        sql.append(" ORDER BY ").append(sqlIdentifier(keyColumn)).append(" LIMIT ").append(pageSize);
+        if (lastKey == null && connectionInfo.getStartRow() > 0) sql.append(" OFFSET ").append(connectionInfo.getStartRow());
+        log.trace("Request next batch after key {}", lastKey);
+        return withRetries(() -> requestSql(sql.toString()).thenApplyAsync(parsing(this::detachKeysetResponse), parseExecutor),
+                connectionInfo.getMaxRetries()).thenCompose(data -> {
+            if (data.isEmpty()) return CompletableFuture.completedFuture(delivered);
+            JsonNode nextKey = data.get(data.size() - 1).get(keyColumn);
+            if (nextKey == null || nextKey.isNull()) {
+                throw new STConnectException("Key column '" + keyColumn + "' is missing from the result of table " + connectionInfo.getTableName());
+            }
+            if (keyColumn.startsWith(SEA_TABLE_PROPERTIES_PREFIX) || projection != null && !projection.contains(keyColumn)) {
+                data.forEach(row -> ((ObjectNode) row).remove(keyColumn));
+            }
+            if (sink instanceof CheckpointSink checkpointSink) checkpointSink.lastKey = nextKey;
+            sink.onPage(data);
+            if (data.size() < pageSize) return CompletableFuture.completedFuture(delivered + data.size());
+            return processNextBatchByKey(sink, nextKey, remaining - data.size(), delivered + data.size());
         });
     }
 
+    /**
+     * The projected columns (and the key column to resume from), {@code *} without projection
+     */
+    private String selectList(String keyColumn) {
+        if (projection == null) return "*";
+        StringBuilder columns = new StringBuilder();
+        for (String column : projection) {
+            columns.append(sqlIdentifier(column)).append(", ");
+        }
+        if (!projection.contains(keyColumn)) return columns.append(sqlIdentifier(keyColumn)).toString();
+        return columns.substring(0, columns.length() - 2);
+    }
+
+    private ArrayNode detachKeysetResponse(InputStream response) {
+        try (JsonParser parser = mapper.createParser(response)) {
+            if (!responseParser.seekField(parser, "results")) {
+                throw new STConnectException("Invalid response from SeaTable server, results not found!");
+            }
+            return responseParser.readRows(parser, rowTemplate, Set.of(connectionInfo.getKeyColumn()), projection);
+        } catch (IOException e) {
+            log.error("Error occurred when processing JSON data: {}", e.getMessage(), e);
+            throw new STConnectException("Error occurred when processing JSON data: " + e.getMessage(), e);
+        }
+    }
+
     private CompletableFuture<ArrayNode> doRequest(long start, int limit) {
+        return withRetries(() -> requestPage(start, limit), connectionInfo.getMaxRetries());
+    }
+
+    private CompletableFuture<ArrayNode> requestPage(long start, int limit) {
         // should use URI builder
         String uriFormat = "%s%s%s/rows/?table_name=%s&start=%d&limit=%d";
         if (connectionInfo.getVersion().isSupportConvertKeys()) {
             uriFormat = uriFormat + "&convert_keys=true";
         }
+        if (connectionInfo.getViewName() != null) {
+            uriFormat = uriFormat + "&view_name=%s";
+        }
         URI uri = URI.create(
             String.format(uriFormat,
                     connectionInfo.getUrl(), connectionInfo.getVersion().getTablePath(),
-                    baseInfo.uuid(), encode(connectionInfo.getTableName()), start, limit
+                    baseInfo.uuid(), encode(connectionInfo.getTableName()), start, limit,
+                    connectionInfo.getViewName() == null ? null : encode(connectionInfo.getViewName())
             )
         );
         HttpRequest request = HttpRequest.newBuilder()
             .uri(uri)
             .header("Accept", "application/json")
-            .header("Authorization", stAuth(baseInfo.token()))
             .build();
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        CompletableFuture<HttpResponse<InputStream>> sent = sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        return parse(cancelling(sent
             .thenApply(res -> {
                 if (res.statusCode() == 200) return res;
-//                if (res.statusCode() == 401) {} TODO handle un-authorization status code
                 throw handleErrorResponse(res);
             })
-            .thenApply(HttpResponse::body)
-            .thenApply(this::detachResponse);
+            .thenApply(HttpResponse::body), sent), this::detachResponse);
     }
 
     @Override
-    protected ArrayNode detachResponse(String response) {
-        try {
-            ArrayNode result = mapper.createArrayNode();
-            JsonNode resNode = mapper.readTree(response);
-            Set<String> keysToRemove = new HashSet<>();
-            resNode.get("rows").elements().forEachRemaining(n -> {
-                n = removeSeaTableProperties(n, keysToRemove);
-                result.add(n);
-            });
-            return result;
-        } catch (JsonProcessingException e) {
+    protected ArrayNode detachResponse(InputStream response) {
+        try (JsonParser parser = mapper.createParser(response)) {
+            if (!responseParser.seekField(parser, "rows")) {
+                throw new STConnectException("Invalid response from SeaTable server, rows not found!");
+            }
+            return responseParser.readRows(parser, rowTemplate, Set.of(), projection);
+        } catch (IOException e) {
             log.error("Error occurred when processing JSON data: {}", e.getMessage(), e);
-            throw new STConnectException("Error occurred when processing JSON data: " + e.getMessage());
+            throw new STConnectException("Error occurred when processing JSON data: " + e.getMessage(), e);
         }
     }
 
     /**
-     * @see <a href='https://api.seatable.io/reference/listcolumns-1'>List columns</a>
+     * Settings of the extraction which a checkpoint depends on
+     */
+    private String fingerprint() {
+        return String.join("|", String.valueOf(connectionInfo.getPagination()), connectionInfo.getKeyColumn(),
+                Long.toString(connectionInfo.getStartRow()), Integer.toString(connectionInfo.getLimit()),
+                String.valueOf(connectionInfo.getViewName()), String.valueOf(connectionInfo.getColumns()));
+    }
+
+    /**
+     * Save the position after every delivered page, the pages are delivered in order
+     */
+    private final class CheckpointSink implements STRowSink {
+
+        private final STRowSink sink;
+        private final STCheckpointStore checkpoints;
+        private final String fingerprint;
+        private long offset;
+        private long delivered;
+        /**
+         * Key of the last row of the page being delivered (keyset pagination)
+         */
+        private JsonNode lastKey;
+
+        private CheckpointSink(STRowSink sink, STCheckpointStore checkpoints, String fingerprint, STCheckpoint resume) {
+            this.sink = sink;
+            this.checkpoints = checkpoints;
+            this.fingerprint = fingerprint;
+            if (resume != null) {
+                offset = resume.offset();
+                delivered = resume.delivered();
+                lastKey = resume.lastKey();
+            } else {
+                offset = connectionInfo.shouldQueryAll() ? 0 : connectionInfo.getStartRow();
+            }
+        }
+
+        @Override
+        public void onPage(ArrayNode page) {
+            sink.onPage(page);
+            offset += page.size();
+            delivered += page.size();
+            checkpoints.save(baseInfo.uuid(), connectionInfo.getTableName(), new STCheckpoint(fingerprint, offset, lastKey, delivered));
+        }
+    }
+
+    /**
+     * Blocking version of {@link #getColumnsAsync()}, errors are logged and an empty list is returned
      * @return List of {@link STColumn}
      */
     public List<STColumn> getColumns() {
+        try {
+            return getColumnsAsync().get();
+        } catch (ExecutionException e) {
+            log.error("Error occurred when calling get column list api: {}", e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            log.error("Interrupted exception occurred: {}", e.getMessage(), e);
+            Thread.currentThread().interrupt();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Columns from the {@link STSchemaCache} of the endpoint, requested only if missing or old
+     */
+    public CompletableFuture<List<STColumn>> getColumnsAsync() {
+        return getSchema().thenApply(STSchema::columns);
+    }
+
+    /**
+     * Cached schema of the table, compare its {@link STSchema#hash()} or {@link STSchema#version()} to detect changes
+     */
+    public CompletableFuture<STSchema> getSchema() {
+        return endpoint.getSchemaCache().get(baseInfo.uuid(), connectionInfo.getTableName(), this::requestColumns);
+    }
+
+    /**
+     * @see <a href='https://api.seatable.io/reference/listcolumns-1'>List columns</a>
+     */
+    private CompletableFuture<List<STColumn>> requestColumns() {
         String uriFormat = "%s%s%s/columns/?table_name=%s";
         URI uri = URI.create(String.format(uriFormat,
                 connectionInfo.getUrl(),
@@ -173,32 +405,23 @@ public class STTableNameQuery extends STConnector {
         ));
         HttpRequest request = HttpRequest.newBuilder(uri)
                 .header("Accept", "application/json")
-                .header("Authorization", stAuth(baseInfo.token()))
                 .GET()
                 .build();
-        try {
-            return columnsResponse(client.send(request, HttpResponse.BodyHandlers.ofString()));
-        } catch (IOException e) {
-            log.error("Error occurred when calling get column list api: {}", e.getMessage(), e);
-        } catch (InterruptedException e) {
-            log.error("Interrupted exception occurred: {}", e.getMessage(), e);
-            Thread.currentThread().interrupt();
-        }
-        return Collections.emptyList();
+        return sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApplyAsync(this::columnsResponse, parseExecutor);
     }
 
     private List<STColumn> columnsResponse(HttpResponse<String> response) {
         if (response.statusCode() != 200) {
             log.error("Request columns from table '{}' with the unexpected response: \nSTATUS{}\n{}",
                     connectionInfo.getTableName(), response.statusCode(), response.body());
-            return Collections.emptyList();
+            throw handleErrorResponse(response);
         }
         try {
             JsonNode columnsNode = mapper.readTree(response.body()).get("columns");
             return mapper.treeToValue(columnsNode, new TypeReference<>() {});
         } catch (JsonProcessingException e) {
             log.error("Couldn't parse JSON data: {}", e.getMessage(), e);
-            return Collections.emptyList();
+            throw new STConnectException("Couldn't parse JSON data: " + e.getMessage(), e);
         }
     }
 }
@@ -0,0 +1,292 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.github.vatisteve.dataretriever.seatable.STConnector.STConnectException;
+import io.github.vatisteve.dataretriever.seatable.enums.STWriteOperation;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableWriteConnection;
+import io.github.vatisteve.dataretriever.seatable.model.result.STRowResult;
+import io.github.vatisteve.dataretriever.seatable.model.result.STWriteSummary;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Write rows with the batch row endpoints: the input is read batch by batch (only the batches in flight are kept in
+ * memory), up to {@code parallelism} batches are sent at the same time through the shared {@link STRequestScheduler}
+ * <br />
+ * A batch failed by a server or network error is sent again (after a lookup of the already appended rows for an append
+ * with a {@code keyColumn}), a batch rejected by the server is split until the invalid rows are isolated.
+ * Every row is reported once to the {@code results} consumer, the consumer is called by one batch at a time
+ *
+ * @see STWriteOperation
+ */
+@Slf4j
+@Getter
+public class STTableWriter extends STClient {
+
+    private static final String ROW_ID = "_id";
+    private static final int BAD_REQUEST = 400;
+    private static final int SERVER_ERROR = 500;
+
+    private final STTableWriteConnection connectionInfo;
+
+    public STTableWriter(STTableWriteConnection connectionInfo) throws IOException, InterruptedException {
+        super(connectionInfo);
+        this.connectionInfo = connectionInfo;
+    }
+
+    /**
+     * @param rows Rows by column name, the SeaTable properties are ignored. Use {@code stream.iterator()} for a stream
+     */
+    public CompletableFuture<STWriteSummary> append(Iterator<? extends JsonNode> rows, Consumer<STRowResult> results) {
+        return write(STWriteOperation.APPEND, rows, row -> new Item(null, withoutSeaTableProperties(row)), results);
+    }
+
+    /**
+     * @param rows Rows by column name with their {@code _id}, only the given columns are updated
+     */
+    public CompletableFuture<STWriteSummary> update(Iterator<? extends JsonNode> rows, Consumer<STRowResult> results) {
+        return write(STWriteOperation.UPDATE, rows, row -> {
+            JsonNode id = row.get(ROW_ID);
+            if (id == null || !id.isTextual()) return new Item(null, null);
+            ObjectNode update = mapper.createObjectNode().put("row_id", id.textValue());
+            update.set("row", withoutSeaTableProperties(row));
+            return new Item(id.textValue(), update);
+        }, results);
+    }
+
+    public CompletableFuture<STWriteSummary> delete(Iterator<String> rowIds, Consumer<STRowResult> results) {
+        return write(STWriteOperation.DELETE, rowIds, id -> new Item(id, TextNode.valueOf(id)), results);
+    }
+
+    private <T> CompletableFuture<STWriteSummary> write(STWriteOperation operation, Iterator<T> input,
+                                                        Function<T, Item> toItem,
+                                                        Consumer<STRowResult> results) {
+        WriteJob job = new WriteJob(operation, results);
+        int batchSize = connectionInfo.getBatchSize();
+        AtomicLong index = new AtomicLong();
+        Iterator<List<Item>> batches = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return input.hasNext();
+            }
+            @Override
+            public List<Item> next() {
+                List<Item> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && input.hasNext()) {
+                    Item item = toItem.apply(input.next()).at(index.getAndIncrement());
+                    if (item.payload() == null) {
+                        job.report(List.of(new STRowResult(item.index(), null, "Missing " + ROW_ID)));
+                    } else {
+                        batch.add(item);
+                    }
+                }
+                return batch;
+            }
+        };
+        int parallelism = Math.max(connectionInfo.getParallelism(), 1);
+        log.debug("Write ({}) table {} by batches of {} rows, {} batches in parallel", operation, connectionInfo.getTableName(), batchSize, parallelism);
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            lanes[i] = nextBatch(job, batches);
+        }
+        return CompletableFuture.allOf(lanes).thenApply(v -> new STWriteSummary(job.succeeded.get(), job.failed.get()));
+    }
+
+    /**
+     * Send the next batch of the input once the previous one of the lane is written
+     */
+    private CompletableFuture<Void> nextBatch(WriteJob job, Iterator<List<Item>> batches) {
+        List<Item> batch;
+        synchronized (batches) {
+            batch = batches.hasNext() ? batches.next() : List.of();
+        }
+        if (batch.isEmpty()) {
+            synchronized (batches) {
+                if (!batches.hasNext()) return CompletableFuture.completedFuture(null);
+            }
+            return nextBatch(job, batches); // only invalid rows in this batch
+        }
+        return writeBatch(job, batch, 0).thenCompose(v -> nextBatch(job, batches));
+    }
+
+    private CompletableFuture<Void> writeBatch(WriteJob job, List<Item> batch, int retry) {
+        return send(job.operation, batch).handle((response, e) -> {
+            if (e == null && response.statusCode() == 200) {
+                job.report(written(job.operation, batch, response.body()));
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            boolean serverError = cause != null || response.statusCode() >= SERVER_ERROR;
+            String error = cause != null ? cause.getMessage() : handleErrorResponse(response).getMessage();
+            if (serverError && retry < connectionInfo.getMaxRetries() && isRetryable(job.operation, cause)) {
+                long backoff = retryBackoff(retry);
+                log.debug("Batch of {} rows failed ({}), retry #{} in {} ms", batch.size(), error, retry + 1, TimeUnit.NANOSECONDS.toMillis(backoff));
+                return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(backoff, TimeUnit.NANOSECONDS))
+                        .thenCompose(v -> pendingItems(job.operation, batch, job))
+                        .thenCompose(pending -> pending.isEmpty()
+                                ? CompletableFuture.<Void>completedFuture(null)
+                                : writeBatch(job, pending, retry + 1));
+            }
+            if (!serverError && response.statusCode() == BAD_REQUEST && batch.size() > 1) { // isolate the rejected rows
+                List<Item> head = batch.subList(0, batch.size() / 2);
+                List<Item> tail = batch.subList(batch.size() / 2, batch.size());
+                log.debug("Batch of {} rows rejected ({}), split it", batch.size(), error);
+                return writeBatch(job, head, retry).thenCompose(v -> writeBatch(job, tail, retry));
+            }
+            log.warn("Batch of {} rows failed: {}", batch.size(), error);
+            job.report(batch.stream().map(item -> new STRowResult(item.index(), item.rowId(), error)).toList());
+            return CompletableFuture.<Void>completedFuture(null);
+        }).thenCompose(next -> next);
+    }
+
+    /**
+     * An update or a deletion is idempotent, an append only if the appended rows can be looked up by key
+     * (or if the request could not reach the server)
+     */
+    private boolean isRetryable(STWriteOperation operation, Throwable cause) {
+        return operation != STWriteOperation.APPEND || connectionInfo.getKeyColumn() != null || cause instanceof ConnectException;
+    }
+
+    /**
+     * Rows of the batch to send again: for an append with a key column, the rows already appended are reported and skipped
+     */
+    private CompletableFuture<List<Item>> pendingItems(STWriteOperation operation, List<Item> batch, WriteJob job) {
+        String keyColumn = connectionInfo.getKeyColumn();
+        if (operation != STWriteOperation.APPEND || keyColumn == null) return CompletableFuture.completedFuture(batch);
+        StringJoiner keys = new StringJoiner(", ", "(", ")");
+        batch.forEach(item -> keys.add(sqlLiteral(item.payload().get(keyColumn))));
+        String sql = "SELECT " + sqlIdentifier(ROW_ID) + ", " + sqlIdentifier(keyColumn) + " FROM " + sqlIdentifier(connectionInfo.getTableName())
+                + " WHERE " + sqlIdentifier(keyColumn) + " IN " + keys + " LIMIT " + STSqlQuery.SQL_ROW_LIMIT;
+        return requestSql(sql).thenApplyAsync(parsing(this::detachResponse), parseExecutor).thenApply(rows -> {
+            Map<String, String> appended = new HashMap<>();
+            rows.forEach(row -> appended.put(row.path(keyColumn).asText(), row.path(ROW_ID).asText()));
+            List<Item> pending = new ArrayList<>(batch.size());
+            List<STRowResult> done = new ArrayList<>();
+            for (Item item : batch) {
+                String rowId = appended.get(item.payload().path(keyColumn).asText());
+                if (rowId == null) pending.add(item);
+                else done.add(new STRowResult(item.index(), rowId, null));
+            }
+            if (!done.isEmpty()) {
+                log.debug("{} rows of the failed batch are already appended", done.size());
+                job.report(done);
+            }
+            return pending;
+        });
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(STWriteOperation operation, List<Item> batch) {
+        URI uri = URI.create(String.format("%s%s%s/%s", connectionInfo.getUrl(), connectionInfo.getVersion().getTablePath(),
+                baseInfo.uuid(), operation.getPath(connectionInfo.getVersion())));
+        ObjectNode body = mapper.createObjectNode().put("table_name", connectionInfo.getTableName());
+        ArrayNode rows = body.putArray(operation.getRowsField());
+        batch.forEach(item -> rows.add(item.payload()));
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Accept", "application/json")
+            .header("Content-Type", "application/json")
+            .method(operation.getMethod(), HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+        return sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * The ids of the appended rows are given by the response, in order
+     */
+    private List<STRowResult> written(STWriteOperation operation, List<Item> batch, String response) {
+        JsonNode rowIds = null;
+        if (operation == STWriteOperation.APPEND) {
+            try {
+                rowIds = mapper.readTree(response).get("row_ids");
+            } catch (IOException e) {
+                log.trace("Couldn't read the appended row ids: {}", e.getMessage());
+            }
+        }
+        List<STRowResult> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Item item = batch.get(i);
+            String rowId = item.rowId();
+            if (rowIds != null && i < rowIds.size()) {
+                JsonNode id = rowIds.get(i);
+                rowId = id.isObject() ? id.path(ROW_ID).asText(null) : id.asText(null);
+            }
+            results.add(new STRowResult(item.index(), rowId, null));
+        }
+        return results;
+    }
+
+    private ObjectNode withoutSeaTableProperties(JsonNode row) {
+        ObjectNode payload = mapper.createObjectNode();
+        row.fields().forEachRemaining(field -> {
+            if (!field.getKey().startsWith(STConnector.SEA_TABLE_PROPERTIES_PREFIX)) payload.set(field.getKey(), field.getValue());
+        });
+        return payload;
+    }
+
+    /**
+     * Read only rows, used to look up the appended rows
+     */
+    private ArrayNode detachResponse(InputStream response) {
+        try (JsonParser parser = mapper.createParser(response)) {
+            if (!responseParser.seekField(parser, "results")) {
+                throw new STConnectException("Invalid response from SeaTable server, results not found!");
+            }
+            return responseParser.readRows(parser, null, Set.of(ROW_ID));
+        } catch (IOException e) {
+            log.error("Error occurred when processing JSON data: {}", e.getMessage(), e);
+            throw new STConnectException("Error occurred when processing JSON data: " + e.getMessage(), e);
+        }
+    }
+
+    private record Item(long index, String rowId, JsonNode payload) {
+        Item(String rowId, JsonNode payload) {
+            this(-1, rowId, payload);
+        }
+        Item at(long index) {
+            return new Item(index, rowId, payload);
+        }
+    }
+
+    private static final class WriteJob {
+        private final STWriteOperation operation;
+        private final Consumer<STRowResult> results;
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        private WriteJob(STWriteOperation operation, Consumer<STRowResult> results) {
+            this.operation = operation;
+            this.results = results;
+        }
+
+        private synchronized void report(List<STRowResult> rows) {
+            for (STRowResult row : rows) {
+                (row.isSuccess() ? succeeded : failed).incrementAndGet();
+                if (results != null) results.accept(row);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package io.github.vatisteve.dataretriever.seatable.decode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Decode rows keyed by column names into arrays of Java values, the decoders are looked up once per column
+ */
+public class STRowDecoder {
+
+    @Getter
+    private final List<STColumn> columns;
+    private final String[] names;
+    private final STValueDecoder[] decoders;
+
+    public STRowDecoder(List<STColumn> columns) {
+        this.columns = List.copyOf(columns);
+        this.names = columns.stream().map(STColumn::name).toArray(String[]::new);
+        this.decoders = STValueDecoders.forColumns(columns);
+    }
+
+    /**
+     * @return Values in the order of the {@link #getColumns() columns}, {@code null} for the empty cells
+     */
+    public Object[] decode(JsonNode row) {
+        Object[] values = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            JsonNode value = row.get(names[i]);
+            if (value != null && !value.isNull()) values[i] = decoders[i].decode(value);
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,11 @@
+package io.github.vatisteve.dataretriever.seatable.decode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Convert a cell value to its Java type, the decoder is never called with an empty cell
+ */
+@FunctionalInterface
+public interface STValueDecoder {
+    Object decode(JsonNode value);
+}
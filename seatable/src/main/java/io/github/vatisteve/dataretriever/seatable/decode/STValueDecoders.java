@@ -0,0 +1,108 @@
+package io.github.vatisteve.dataretriever.seatable.decode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STGeolocation;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STNumber;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registry of the {@link STValueDecoder} factories by column type
+ * <br />
+ * Built-in conversions: {@code number} to {@link BigDecimal} (scaled to the precision if enabled), {@code date} to
+ * {@link LocalDate} or {@link LocalDateTime}, {@code ctime/mtime} to {@link OffsetDateTime}, {@code duration} to
+ * {@link Duration}, {@code rate} to {@link Integer}, {@code checkbox} to {@link Boolean},
+ * {@code geolocation} (lng_lat format) to {@link STGeolocation.STPoint}, text-like types to {@link String}.
+ * The other values are kept as {@link JsonNode}
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class STValueDecoders {
+
+    public static final STValueDecoder JSON = value -> value;
+    public static final STValueDecoder TEXT = value -> value.isTextual() ? value.textValue() : value.toString();
+
+    private static final Map<String, Function<STColumn, STValueDecoder>> FACTORIES = new ConcurrentHashMap<>();
+
+    static {
+        for (String type : List.of("text", "long-text", "single-select", "email", "url", "auto-number",
+                "creator", "last-modifier")) {
+            register(type, column -> TEXT);
+        }
+        register("number", STValueDecoders::numberDecoder);
+        register("date", column -> STValueDecoders::decodeDate);
+        register("ctime", column -> STValueDecoders::decodeTimestamp);
+        register("mtime", column -> STValueDecoders::decodeTimestamp);
+        register("duration", column -> value -> Duration.ofMillis(Math.round(value.asDouble() * 1000)));
+        register("rate", column -> JsonNode::asInt);
+        register("checkbox", column -> JsonNode::asBoolean);
+        register("geolocation", column -> value -> value.has("lng") && value.has("lat")
+                ? new STGeolocation.STPoint(value.get("lng").asDouble(), value.get("lat").asDouble())
+                : value);
+    }
+
+    /**
+     * Register (or replace) the decoder factory of a column type
+     */
+    public static void register(String type, Function<STColumn, STValueDecoder> factory) {
+        FACTORIES.put(type, factory);
+    }
+
+    public static STValueDecoder forColumn(STColumn column) {
+        Function<STColumn, STValueDecoder> factory = column.type() == null ? null : FACTORIES.get(column.type());
+        return factory == null ? JSON : factory.apply(column);
+    }
+
+    /**
+     * Decoders of the {@code columns}, in the same order
+     */
+    public static STValueDecoder[] forColumns(List<STColumn> columns) {
+        STValueDecoder[] decoders = new STValueDecoder[columns.size()];
+        for (int i = 0; i < decoders.length; i++) {
+            decoders[i] = forColumn(columns.get(i));
+        }
+        return decoders;
+    }
+
+    private static STValueDecoder numberDecoder(STColumn column) {
+        if (column.data() instanceof STNumber number && number.enablePrecision()) {
+            int precision = number.precision();
+            return value -> toBigDecimal(value).setScale(precision, RoundingMode.HALF_UP);
+        }
+        return STValueDecoders::toBigDecimal;
+    }
+
+    private static BigDecimal toBigDecimal(JsonNode value) {
+        return value.isNumber() ? value.decimalValue() : new BigDecimal(value.asText().trim());
+    }
+
+    /**
+     * SeaTable dates are {@code yyyy-MM-dd}, optionally followed by the time
+     */
+    private static Object decodeDate(JsonNode value) {
+        String text = value.asText();
+        if (text.length() <= 10) return LocalDate.parse(text);
+        try {
+            return OffsetDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(text.replace(' ', 'T'));
+        }
+    }
+
+    private static Object decodeTimestamp(JsonNode value) {
+        return OffsetDateTime.parse(value.asText());
+    }
+
+}
@@ -0,0 +1,14 @@
+package io.github.vatisteve.dataretriever.seatable.enums;
+
+public enum STJobStatus {
+    SUCCEEDED,
+    FAILED,
+    /**
+     * Not completed within the timeout of the job, the rows delivered so far are kept by the sink
+     */
+    TIMED_OUT,
+    /**
+     * Cancelled before its completion, possibly before its start
+     */
+    CANCELLED
+}
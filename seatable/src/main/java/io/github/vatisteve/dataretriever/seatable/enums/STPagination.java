@@ -0,0 +1,12 @@
+package io.github.vatisteve.dataretriever.seatable.enums;
+
+public enum STPagination {
+    /**
+     * {@code start} and {@code limit} parameters of the list rows api
+     */
+    OFFSET,
+    /**
+     * {@code WHERE key > lastKey ORDER BY key LIMIT n} through the SQL api, stable while the table is modified
+     */
+    KEYSET
+}
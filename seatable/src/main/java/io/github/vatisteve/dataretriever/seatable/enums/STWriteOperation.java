@@ -0,0 +1,38 @@
+package io.github.vatisteve.dataretriever.seatable.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Batch row endpoints, relative to the base path of the {@link STVersion}
+ *
+ * @see <a href='https://api.seatable.io/reference/appendrows'>Append Row(s)</a>
+ * @see <a href='https://api.seatable.io/reference/updaterow'>Update Row(s)</a>
+ * @see <a href='https://api.seatable.io/reference/deleterow'>Delete Row(s)</a>
+ */
+@Getter
+@RequiredArgsConstructor
+public enum STWriteOperation {
+
+    APPEND("POST", "rows/", "batch-append-rows/", "rows"),
+    UPDATE("PUT", "rows/", "batch-update-rows/", "updates"),
+    DELETE("DELETE", "rows/", "batch-delete-rows/", "row_ids");
+
+    /**
+     * Max number of rows in one request
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final String method;
+    private final String path;
+    /**
+     * Path of SeaTable before 4.4
+     */
+    private final String legacyPath;
+    private final String rowsField;
+
+    public String getPath(STVersion version) {
+        return version == STVersion.BEFORE_4_4 ? legacyPath : path;
+    }
+
+}
@@ -0,0 +1,3 @@
+package io.github.vatisteve.dataretriever.seatable.instrument;
+
+public record STErrorEvent(STTags tags, int statusCode, String message) {}
@@ -0,0 +1,50 @@
+package io.github.vatisteve.dataretriever.seatable.instrument;
+
+import java.util.List;
+
+/**
+ * Receive the measures of the connectors: every http exchange, the parsing of every page and the transform of the
+ * data, tagged with the base, the table and the SeaTable version
+ * <br />
+ * The methods are called on the http client and parse threads, they must be quick and must not throw.
+ * {@link #NOOP} by default, see {@link STJfrInstrumentation} and {@link STMicrometerInstrumentation}
+ *
+ * @see io.github.vatisteve.dataretriever.seatable.model.connection.STConnection#setInstrumentation(STInstrumentation)
+ */
+public interface STInstrumentation {
+
+    STInstrumentation NOOP = new STInstrumentation() {};
+
+    /**
+     * One http exchange, sent again after a {@code 429} or {@code 401} response as another exchange
+     */
+    default void onRequest(STRequestEvent event) {}
+
+    default void onStage(STStageEvent event) {}
+
+    /**
+     * Error response of the server (its message as given by the server)
+     */
+    default void onError(STErrorEvent event) {}
+
+    static STInstrumentation composite(STInstrumentation... instrumentations) {
+        List<STInstrumentation> all = List.of(instrumentations);
+        return new STInstrumentation() {
+            @Override
+            public void onRequest(STRequestEvent event) {
+                all.forEach(instrumentation -> instrumentation.onRequest(event));
+            }
+
+            @Override
+            public void onStage(STStageEvent event) {
+                all.forEach(instrumentation -> instrumentation.onStage(event));
+            }
+
+            @Override
+            public void onError(STErrorEvent event) {
+                all.forEach(instrumentation -> instrumentation.onError(event));
+            }
+        };
+    }
+
+}
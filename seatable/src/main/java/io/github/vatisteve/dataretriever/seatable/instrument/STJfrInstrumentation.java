@@ -0,0 +1,123 @@
+package io.github.vatisteve.dataretriever.seatable.instrument;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Commit the measures as JDK Flight Recorder events (category {@code SeaTable}), only when they are recorded,
+ * e.g. {@code -XX:StartFlightRecording} or in JDK Mission Control
+ */
+public class STJfrInstrumentation implements STInstrumentation {
+
+    @Override
+    public void onRequest(STRequestEvent event) {
+        RequestEvent jfr = new RequestEvent();
+        if (!jfr.shouldCommit()) return;
+        jfr.baseUuid = event.tags().baseUuid();
+        jfr.table = event.tags().table();
+        jfr.version = String.valueOf(event.tags().version());
+        jfr.method = event.method();
+        jfr.endpoint = event.endpoint();
+        jfr.statusCode = event.statusCode();
+        jfr.waitTime = event.waitNanos();
+        jfr.receiveTime = event.receiveNanos();
+        jfr.bytes = event.bytes();
+        jfr.commit();
+    }
+
+    @Override
+    public void onStage(STStageEvent event) {
+        StageEvent jfr = new StageEvent();
+        if (!jfr.shouldCommit()) return;
+        jfr.baseUuid = event.tags().baseUuid();
+        jfr.table = event.tags().table();
+        jfr.version = String.valueOf(event.tags().version());
+        jfr.stage = event.stage();
+        jfr.rows = event.rows();
+        jfr.time = event.nanos();
+        jfr.commit();
+    }
+
+    @Override
+    public void onError(STErrorEvent event) {
+        ErrorEvent jfr = new ErrorEvent();
+        if (!jfr.shouldCommit()) return;
+        jfr.baseUuid = event.tags().baseUuid();
+        jfr.table = event.tags().table();
+        jfr.version = String.valueOf(event.tags().version());
+        jfr.statusCode = event.statusCode();
+        jfr.message = event.message();
+        jfr.commit();
+    }
+
+    @Name("io.github.vatisteve.seatable.Request")
+    @Label("SeaTable Request")
+    @Category("SeaTable")
+    @StackTrace(false)
+    static class RequestEvent extends Event {
+        @Label("Base")
+        String baseUuid;
+        @Label("Table")
+        String table;
+        @Label("Version")
+        String version;
+        @Label("Method")
+        String method;
+        @Label("Endpoint")
+        String endpoint;
+        @Label("Status Code")
+        int statusCode;
+        @Label("Wait Time")
+        @Timespan
+        long waitTime;
+        @Label("Receive Time")
+        @Timespan
+        long receiveTime;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("io.github.vatisteve.seatable.Stage")
+    @Label("SeaTable Stage")
+    @Category("SeaTable")
+    @StackTrace(false)
+    static class StageEvent extends Event {
+        @Label("Base")
+        String baseUuid;
+        @Label("Table")
+        String table;
+        @Label("Version")
+        String version;
+        @Label("Stage")
+        String stage;
+        @Label("Rows")
+        long rows;
+        @Label("Time")
+        @Timespan
+        long time;
+    }
+
+    @Name("io.github.vatisteve.seatable.Error")
+    @Label("SeaTable Error")
+    @Category("SeaTable")
+    @StackTrace(false)
+    static class ErrorEvent extends Event {
+        @Label("Base")
+        String baseUuid;
+        @Label("Table")
+        String table;
+        @Label("Version")
+        String version;
+        @Label("Status Code")
+        int statusCode;
+        @Label("Message")
+        String message;
+    }
+
+}
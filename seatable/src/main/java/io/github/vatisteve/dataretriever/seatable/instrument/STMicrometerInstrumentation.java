@@ -0,0 +1,54 @@
+package io.github.vatisteve.dataretriever.seatable.instrument;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record the measures in a Micrometer {@link MeterRegistry}, requires the optional {@code micrometer-core} dependency
+ * <br />
+ * Meters tagged with {@code base}, {@code table}, {@code version} (and {@code endpoint}, {@code status}, {@code stage}):
+ * <ul>
+ *     <li>{@code seatable.request.wait} and {@code seatable.request.receive} timers</li>
+ *     <li>{@code seatable.request.bytes} summary of the received bytes</li>
+ *     <li>{@code seatable.stage} timer and {@code seatable.stage.rows} summary of the parse and transform stages</li>
+ *     <li>{@code seatable.errors} counter of the error responses</li>
+ * </ul>
+ */
+public class STMicrometerInstrumentation implements STInstrumentation {
+
+    private final MeterRegistry registry;
+
+    public STMicrometerInstrumentation(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void onRequest(STRequestEvent event) {
+        Tags tags = tags(event.tags()).and("endpoint", event.endpoint(), "status", Integer.toString(event.statusCode()));
+        Timer.builder("seatable.request.wait").tags(tags).register(registry).record(event.waitNanos(), TimeUnit.NANOSECONDS);
+        Timer.builder("seatable.request.receive").tags(tags).register(registry).record(event.receiveNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("seatable.request.bytes").baseUnit("bytes").tags(tags).register(registry).record(event.bytes());
+    }
+
+    @Override
+    public void onStage(STStageEvent event) {
+        Tags tags = tags(event.tags()).and("stage", event.stage());
+        Timer.builder("seatable.stage").tags(tags).register(registry).record(event.nanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("seatable.stage.rows").baseUnit("rows").tags(tags).register(registry).record(event.rows());
+    }
+
+    @Override
+    public void onError(STErrorEvent event) {
+        registry.counter("seatable.errors", tags(event.tags()).and("status", Integer.toString(event.statusCode()))).increment();
+    }
+
+    private static Tags tags(STTags tags) {
+        return Tags.of("base", String.valueOf(tags.baseUuid()), "table", String.valueOf(tags.table()),
+                "version", String.valueOf(tags.version()));
+    }
+
+}
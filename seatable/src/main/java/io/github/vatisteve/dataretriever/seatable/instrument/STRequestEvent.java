@@ -0,0 +1,11 @@
+package io.github.vatisteve.dataretriever.seatable.instrument;
+
+/**
+ * @param endpoint      Api of the request: {@code rows}, {@code sql}, {@code columns}...
+ * @param waitNanos     From the submission of the request (or the previous exchange of the same request) to the
+ *                      response headers, including the wait for the request budget
+ * @param receiveNanos  From the response headers to the end of the body, which is parsed meanwhile if it is streamed
+ * @param bytes         Bytes of the body as received, compressed or not
+ */
+public record STRequestEvent(STTags tags, String method, String endpoint, int statusCode,
+                             long waitNanos, long receiveNanos, long bytes) {}
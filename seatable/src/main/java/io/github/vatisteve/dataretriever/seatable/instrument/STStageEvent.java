@@ -0,0 +1,13 @@
+package io.github.vatisteve.dataretriever.seatable.instrument;
+
+/**
+ * @param stage     {@link #PARSE} of a response page or {@link #TRANSFORM} of the whole data
+ * @param nanos     Duration of the stage. The parsing of a streamed body includes the wait for its bytes,
+ *                  compare with {@link STRequestEvent#receiveNanos()} to tell the network from the parsing
+ */
+public record STStageEvent(STTags tags, String stage, long rows, long nanos) {
+
+    public static final String PARSE = "parse";
+    public static final String TRANSFORM = "transform";
+
+}
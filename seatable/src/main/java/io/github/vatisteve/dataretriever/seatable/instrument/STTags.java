@@ -0,0 +1,8 @@
+package io.github.vatisteve.dataretriever.seatable.instrument;
+
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+
+/**
+ * @param table     Table of the connector, {@code null} for a SQL query
+ */
+public record STTags(String baseUuid, String table, STVersion version) {}
@@ -1,10 +1,13 @@
 package io.github.vatisteve.dataretriever.seatable.model.connection;
 
 import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.instrument.STInstrumentation;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
+import java.util.concurrent.Executor;
+
 @Data
 @NoArgsConstructor
 @SuperBuilder
@@ -12,4 +15,21 @@ public abstract class STConnection {
     private String url;
     private String apiKey;
     private STVersion version;
+    /**
+     * Budget of the requests to the server, only the first connection of each url configures it
+     */
+    private STRateLimit rateLimit;
+    /**
+     * Settings of the http client, {@link STHttpOptions#DEFAULT} if {@code null}. The connectors share one client per
+     * url, HTTP version and connect timeout
+     */
+    private STHttpOptions httpOptions;
+    /**
+     * Receiver of the request, parse and transform measures, {@link STInstrumentation#NOOP} if {@code null}
+     */
+    private STInstrumentation instrumentation;
+    /**
+     * Executor of the response parsing, the shared parse pool of {@link io.github.vatisteve.dataretriever.seatable.STExecutors} by default
+     */
+    private Executor parseExecutor;
 }
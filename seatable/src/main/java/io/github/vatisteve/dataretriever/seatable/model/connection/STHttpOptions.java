@@ -0,0 +1,43 @@
+package io.github.vatisteve.dataretriever.seatable.model.connection;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Settings of the {@link HttpClient} shared by the connectors of the same SeaTable server, HTTP version and connect
+ * timeout, and of the requests of each connector
+ */
+@Value
+@Builder
+public class STHttpOptions {
+
+    public static final STHttpOptions DEFAULT = STHttpOptions.builder().build();
+
+    /**
+     * Ask for gzip or deflate compressed responses ({@code Accept-Encoding}), decompressed while they are received
+     */
+    @Builder.Default
+    boolean compression = true;
+    /**
+     * {@link HttpClient.Version#HTTP_2} multiplexes the requests over the reused connections, falls back to HTTP/1.1
+     * if the server doesn't support it
+     */
+    @Builder.Default
+    HttpClient.Version version = HttpClient.Version.HTTP_2;
+    @Builder.Default
+    Duration connectTimeout = Duration.ofSeconds(30);
+    /**
+     * Max time to receive the response headers of a request, {@code null} for no limit
+     */
+    Duration requestTimeout;
+    /**
+     * Executor of the {@link HttpClient} tasks, the default executor of the client if {@code null}. Only the first
+     * connector of the shared client configures it
+     */
+    Executor executor;
+
+}
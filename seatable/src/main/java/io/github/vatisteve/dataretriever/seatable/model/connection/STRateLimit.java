@@ -0,0 +1,48 @@
+package io.github.vatisteve.dataretriever.seatable.model.connection;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Request budget shared by all connectors of the same SeaTable server
+ * @see <a href='https://api.seatable.io/reference/limits'>About SeaTable API limitation</a>
+ */
+@Value
+@Builder
+public class STRateLimit {
+
+    public static final STRateLimit DEFAULT = STRateLimit.builder().build();
+
+    /**
+     * Requests per minute for each base
+     */
+    @Builder.Default
+    int requestsPerMinutePerBase = 300;
+    /**
+     * Requests per minute for each API token
+     */
+    @Builder.Default
+    int requestsPerMinutePerToken = 300;
+    /**
+     * Max requests sent and not answered yet
+     */
+    @Builder.Default
+    int maxInFlight = 16;
+    /**
+     * Max requests waiting for an in-flight slot, the next requests fail immediately
+     */
+    @Builder.Default
+    int maxQueued = 10_000;
+    /**
+     * Max retries of a request answered with {@code 429 Too Many Requests}
+     */
+    @Builder.Default
+    int maxRetries = 5;
+    @Builder.Default
+    Duration initialBackoff = Duration.ofSeconds(1);
+    @Builder.Default
+    Duration maxBackoff = Duration.ofMinutes(1);
+
+}
@@ -11,4 +11,21 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class STSqlQueryConnection extends STConnection {
     private String query;
+    /**
+     * Rewrite the query with {@code LIMIT/OFFSET} to get the results beyond the server row limit
+     */
+    private boolean autoPaging;
+    /**
+     * Rows per page of the auto paging, the server row limit by default
+     */
+    private int pageSize;
+    /**
+     * Number of pages requested at the same time by the auto paging, {@code 0} or {@code 1} means sequential paging
+     */
+    private int parallelism;
+    /**
+     * Rows of a join statement as arrays of the values in the order of the metadata, instead of objects keyed by
+     * {@code table_name.column_name}
+     */
+    private boolean positionalRows;
 }
@@ -1,10 +1,13 @@
 package io.github.vatisteve.dataretriever.seatable.model.connection;
 
+import io.github.vatisteve.dataretriever.seatable.enums.STPagination;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @EqualsAndHashCode(callSuper = true)
@@ -13,7 +16,52 @@ public class STTableNameConnection extends STConnection {
     private String tableName;
     private long startRow;
     private int limit;
+    /**
+     * Number of pages requested at the same time, {@code 0} or {@code 1} means sequential paging
+     */
+    private int parallelism;
+    /**
+     * Approximate row count of the table (if known), used to avoid requesting pages beyond the end of the table
+     */
+    private long rowCountHint;
+    /**
+     * {@link STPagination#OFFSET} by default
+     */
+    private STPagination pagination;
+    /**
+     * Column (with unique and ordered values) used by the {@link STPagination#KEYSET} pagination, {@code _id} by default
+     */
+    private String keyColumn;
+    /**
+     * Projection of the rows, {@code null} or empty for all columns. Selected by the SQL api with the
+     * {@link STPagination#KEYSET} pagination, otherwise the other columns are skipped while parsing the response
+     */
+    private List<String> columns;
+    /**
+     * Only the rows of this view (filters and sorts of the view applied by the server), not supported by the
+     * {@link STPagination#KEYSET} pagination
+     */
+    private String viewName;
+    /**
+     * Retries of a page failed by a server or network error, {@code 3} by default
+     */
+    private Integer maxRetries;
     public boolean shouldQueryAll() {
         return limit == 0;
     }
+    public boolean shouldQueryInParallel() {
+        return parallelism > 1;
+    }
+    public boolean shouldQueryByKey() {
+        return pagination == STPagination.KEYSET;
+    }
+    public boolean hasProjection() {
+        return columns != null && !columns.isEmpty();
+    }
+    public int getMaxRetries() {
+        return maxRetries == null ? 3 : maxRetries;
+    }
+    public String getKeyColumn() {
+        return keyColumn == null ? "_id" : keyColumn;
+    }
 }
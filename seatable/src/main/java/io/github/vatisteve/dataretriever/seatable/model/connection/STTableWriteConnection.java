@@ -0,0 +1,38 @@
+package io.github.vatisteve.dataretriever.seatable.model.connection;
+
+import io.github.vatisteve.dataretriever.seatable.enums.STWriteOperation;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@SuperBuilder
+public class STTableWriteConnection extends STConnection {
+    private String tableName;
+    /**
+     * Rows per request, up to {@link STWriteOperation#MAX_BATCH_SIZE} (the default)
+     */
+    private int batchSize;
+    /**
+     * Number of batches sent at the same time, {@code 0} or {@code 1} means sequential batches
+     */
+    private int parallelism;
+    /**
+     * Retries of a batch failed by a server or network error, {@code 3} by default
+     */
+    private Integer maxRetries;
+    /**
+     * Column with unique values, looked up before sending an append batch again so that no row is appended twice.
+     * Without it, an append batch is only retried when the server could not be reached
+     */
+    private String keyColumn;
+    public int getBatchSize() {
+        return batchSize <= 0 ? STWriteOperation.MAX_BATCH_SIZE : Math.min(batchSize, STWriteOperation.MAX_BATCH_SIZE);
+    }
+    public int getMaxRetries() {
+        return maxRetries == null ? 3 : maxRetries;
+    }
+}
@@ -1,5 +1,9 @@
 package io.github.vatisteve.dataretriever.seatable.model.metadata;
 
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 public record STAutoNumber(
         String format,
         int maxUsedAutoNumber,
@@ -1,7 +1,13 @@
 package io.github.vatisteve.dataretriever.seatable.model.metadata;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
-public record STButton (String name, String color, List<STButtonAction> actions) implements STDataType {
-    public record STButtonAction (String type) {}
+public record STButton (
+        @JsonProperty("button_name") String name,
+        @JsonProperty("button_color") String color,
+        @JsonProperty("button_action_list") List<STButtonAction> actions
+) implements STDataType {
+    public record STButtonAction (@JsonProperty("action_type") String type) {}
 }
@@ -1,9 +1,30 @@
 package io.github.vatisteve.dataretriever.seatable.model.metadata;
 
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * @param data Column settings deserialized by the {@code type}, {@code null} for the types without settings
+ */
 public record STColumn (
         String key,
         String type,
         String name,
         String description,
-        Object data // STDataType - TODO: deserialize issue
+        @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXTERNAL_PROPERTY, property = "type",
+                defaultImpl = Void.class, visible = true)
+        @JsonSubTypes({
+                @JsonSubTypes.Type(value = STNumber.class, name = "number"),
+                @JsonSubTypes.Type(value = STDate.class, name = "date"),
+                @JsonSubTypes.Type(value = STDuration.class, name = "duration"),
+                @JsonSubTypes.Type(value = STRate.class, name = "rate"),
+                @JsonSubTypes.Type(value = STGeolocation.class, name = "geolocation"),
+                @JsonSubTypes.Type(value = STAutoNumber.class, name = "auto-number"),
+                @JsonSubTypes.Type(value = STFormula.class, name = "formula"),
+                @JsonSubTypes.Type(value = STLinkFormula.class, name = "link-formula"),
+                @JsonSubTypes.Type(value = STLink.class, name = "link"),
+                @JsonSubTypes.Type(value = STButton.class, name = "button"),
+                @JsonSubTypes.Type(value = STSelect.class, names = {"single-select", "multiple-select"})
+        })
+        STDataType data
 ) {}
@@ -1,3 +1,7 @@
 package io.github.vatisteve.dataretriever.seatable.model.metadata;
 
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 public record STFormula(String formula, String resultType) implements STDataType {}
@@ -1,3 +1,12 @@
 package io.github.vatisteve.dataretriever.seatable.model.metadata;
 
-public record STGeolocation(String geoFormat) implements STDataType {}
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record STGeolocation(String geoFormat) implements STDataType {
+    /**
+     * Cell value of the {@code lng_lat} format
+     */
+    public record STPoint(double lng, double lat) {}
+}
@@ -1,3 +1,13 @@
 package io.github.vatisteve.dataretriever.seatable.model.metadata;
 
-public record STLink(String resultType) implements STDataType {}
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record STLink(
+        String resultType,
+        String linkId,
+        String tableId,
+        String otherTableId,
+        String displayColumnKey
+) implements STDataType {}
@@ -1,3 +1,5 @@
 package io.github.vatisteve.dataretriever.seatable.model.metadata;
 
-public record STRate(int maxNumber) implements STDataType {}
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record STRate(@JsonProperty("rate_max_number") int maxNumber) implements STDataType {}
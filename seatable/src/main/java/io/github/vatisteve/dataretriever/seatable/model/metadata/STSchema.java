@@ -0,0 +1,11 @@
+package io.github.vatisteve.dataretriever.seatable.model.metadata;
+
+import java.util.List;
+
+/**
+ * Columns of a table as cached by the schema cache
+ * @param hash      Fingerprint of the column keys, names and types
+ * @param version   Incremented every time a refresh finds another {@code hash}
+ * @param loadedAt  {@link System#nanoTime()} of the load
+ */
+public record STSchema(List<STColumn> columns, String hash, int version, long loadedAt) {}
@@ -0,0 +1,12 @@
+package io.github.vatisteve.dataretriever.seatable.model.metadata;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record STSelect(List<STSelectOption> options) implements STDataType {
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record STSelectOption(String id, String name, String color, String textColor) {}
+}
@@ -0,0 +1,13 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Position of an extraction after its last delivered page, to resume it once failed or interrupted
+ * @param fingerprint   Settings of the extraction (pagination, range, view, projection), a checkpoint is only
+ *                      resumed by the same extraction
+ * @param offset        Offset of the next page (offset pagination)
+ * @param lastKey       Key of the last delivered row (keyset pagination), {@code null} otherwise
+ * @param delivered     Rows delivered to the sink so far
+ */
+public record STCheckpoint(String fingerprint, long offset, JsonNode lastKey, long delivered) {}
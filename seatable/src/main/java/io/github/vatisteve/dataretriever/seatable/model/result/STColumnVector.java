@@ -0,0 +1,296 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Values of one column stored by type: primitive arrays for numbers, bitsets for booleans,
+ * dictionary codes for strings and JSON nodes for the other values. Nulls are tracked in a bitset
+ */
+public sealed interface STColumnVector {
+
+    int INITIAL_CAPACITY = 1024;
+
+    int size();
+
+    boolean isNull(int row);
+
+    /**
+     * Append a cell value, {@code null} or {@link NullNode} for an empty cell
+     */
+    void append(JsonNode value);
+
+    /**
+     * Value as a JSON node, the inverse of {@link #append(JsonNode)} (up to the type conversion)
+     */
+    JsonNode get(int row);
+
+    /**
+     * Release the unused capacity once all the values are appended
+     */
+    void trim();
+
+    static boolean isEmpty(JsonNode value) {
+        return value == null || value.isNull() || value.isMissingNode();
+    }
+
+    static int grow(int capacity, int required) {
+        return Math.max(required, capacity + (capacity >> 1) + 1);
+    }
+
+    final class DoubleVector implements STColumnVector {
+        private double[] values = new double[INITIAL_CAPACITY];
+        private final BitSet nulls = new BitSet();
+        private int size;
+
+        @Override
+        public void append(JsonNode value) {
+            if (size == values.length) values = Arrays.copyOf(values, grow(values.length, size + 1));
+            if (isEmpty(value) || !(value.isNumber() || value.isTextual())) {
+                nulls.set(size);
+            } else if (value.isNumber()) {
+                values[size] = value.doubleValue();
+            } else {
+                try {
+                    values[size] = Double.parseDouble(value.textValue());
+                } catch (NumberFormatException e) {
+                    nulls.set(size);
+                }
+            }
+            size++;
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        /**
+         * Direct access to the values, the null cells contain {@code 0}
+         */
+        public double[] values() {
+            return values;
+        }
+
+        @Override
+        public JsonNode get(int row) {
+            return isNull(row) ? NullNode.getInstance() : JsonNodeFactory.instance.numberNode(values[row]);
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    final class LongVector implements STColumnVector {
+        private long[] values = new long[INITIAL_CAPACITY];
+        private final BitSet nulls = new BitSet();
+        private int size;
+
+        @Override
+        public void append(JsonNode value) {
+            if (size == values.length) values = Arrays.copyOf(values, grow(values.length, size + 1));
+            if (isEmpty(value) || !value.canConvertToLong()) {
+                nulls.set(size);
+            } else {
+                values[size] = value.longValue();
+            }
+            size++;
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        /**
+         * Direct access to the values, the null cells contain {@code 0}
+         */
+        public long[] values() {
+            return values;
+        }
+
+        @Override
+        public JsonNode get(int row) {
+            return isNull(row) ? NullNode.getInstance() : JsonNodeFactory.instance.numberNode(values[row]);
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    final class BooleanVector implements STColumnVector {
+        private final BitSet values = new BitSet();
+        private final BitSet nulls = new BitSet();
+        private int size;
+
+        @Override
+        public void append(JsonNode value) {
+            if (isEmpty(value)) {
+                nulls.set(size);
+            } else if (value.asBoolean()) {
+                values.set(size);
+            }
+            size++;
+        }
+
+        public boolean getBoolean(int row) {
+            return values.get(row);
+        }
+
+        /**
+         * Rows with the value {@code true}
+         */
+        public BitSet values() {
+            return values;
+        }
+
+        @Override
+        public JsonNode get(int row) {
+            return isNull(row) ? NullNode.getInstance() : JsonNodeFactory.instance.booleanNode(values.get(row));
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void trim() {
+            // bitsets are already compact
+        }
+    }
+
+    /**
+     * Strings replaced by their code in a dictionary of the distinct values, the code {@code -1} is an empty cell
+     */
+    final class DictionaryVector implements STColumnVector {
+        private int[] codes = new int[INITIAL_CAPACITY];
+        private final List<String> dictionary = new ArrayList<>();
+        private Map<String, Integer> index = new HashMap<>();
+        private int size;
+
+        /**
+         * @throws IllegalStateException once the vector is {@link #trim() trimmed}, its lookup index is released
+         */
+        @Override
+        public void append(JsonNode value) {
+            if (index == null) throw new IllegalStateException("Dictionary vector is trimmed");
+            if (size == codes.length) codes = Arrays.copyOf(codes, grow(codes.length, size + 1));
+            if (isEmpty(value)) {
+                codes[size++] = -1;
+                return;
+            }
+            String text = value.isTextual() ? value.textValue() : value.toString();
+            codes[size++] = index.computeIfAbsent(text, t -> {
+                dictionary.add(t);
+                return dictionary.size() - 1;
+            });
+        }
+
+        public String getString(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        public List<String> dictionary() {
+            return dictionary;
+        }
+
+        @Override
+        public JsonNode get(int row) {
+            int code = codes[row];
+            return code < 0 ? NullNode.getInstance() : JsonNodeFactory.instance.textNode(dictionary.get(code));
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return codes[row] < 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void trim() {
+            codes = Arrays.copyOf(codes, size);
+            index = null;
+        }
+    }
+
+    /**
+     * Fallback for the structured values (links, collaborators, files, ...)
+     */
+    final class NodeVector implements STColumnVector {
+        private JsonNode[] values = new JsonNode[INITIAL_CAPACITY];
+        private int size;
+
+        @Override
+        public void append(JsonNode value) {
+            if (size == values.length) values = Arrays.copyOf(values, grow(values.length, size + 1));
+            values[size++] = isEmpty(value) ? null : value;
+        }
+
+        @Override
+        public JsonNode get(int row) {
+            JsonNode value = values[row];
+            return value == null ? NullNode.getInstance() : value;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return values[row] == null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+}
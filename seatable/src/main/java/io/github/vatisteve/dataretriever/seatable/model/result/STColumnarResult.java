@@ -0,0 +1,88 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows stored as one {@link STColumnVector} per column, the vector type is chosen by the {@link STColumn#type()}
+ */
+public class STColumnarResult {
+
+    @Getter
+    private final List<STColumn> columns;
+    private final STColumnVector[] vectors;
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    @Getter
+    private int rowCount;
+
+    public STColumnarResult(List<STColumn> columns) {
+        this.columns = List.copyOf(columns);
+        this.vectors = new STColumnVector[columns.size()];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = vectorOf(columns.get(i).type());
+            columnIndex.put(columns.get(i).name(), i);
+        }
+    }
+
+    /**
+     * @param type SeaTable column type
+     */
+    public static STColumnVector vectorOf(String type) {
+        if (type == null) return new STColumnVector.NodeVector();
+        return switch (type) {
+            case "number", "duration" -> new STColumnVector.DoubleVector();
+            case "rate" -> new STColumnVector.LongVector();
+            case "checkbox" -> new STColumnVector.BooleanVector();
+            case "text", "single-select", "email", "url", "auto-number", "date", "ctime", "mtime",
+                 "creator", "last-modifier" -> new STColumnVector.DictionaryVector();
+            default -> new STColumnVector.NodeVector();
+        };
+    }
+
+    /**
+     * Append a row keyed by column names, the columns missing from the row are empty cells
+     */
+    public void append(JsonNode row) {
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].append(row.get(columns.get(i).name()));
+        }
+        rowCount++;
+    }
+
+    public STColumnVector vector(int column) {
+        return vectors[column];
+    }
+
+    /**
+     * @return {@code null} if there is no column with this name
+     */
+    public STColumnVector vector(String columnName) {
+        Integer column = columnIndex.get(columnName);
+        return column == null ? null : vectors[column];
+    }
+
+    /**
+     * Rebuild a row keyed by column names
+     */
+    public ObjectNode row(int row, ObjectNode target) {
+        for (int i = 0; i < vectors.length; i++) {
+            target.set(columns.get(i).name(), vectors[i].get(row));
+        }
+        return target;
+    }
+
+    /**
+     * Release the unused capacity of the vectors once all the rows are appended
+     */
+    public STColumnarResult trim() {
+        for (STColumnVector vector : vectors) vector.trim();
+        return this;
+    }
+
+}
@@ -0,0 +1,11 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+import java.util.List;
+
+/**
+ * Outcome of a delta sync
+ * @param upserts       Number of rows created or modified since the previous watermark (delivered to the sink)
+ * @param deletedIds    {@code _id} of the rows deleted since the previous sync
+ * @param watermark     Watermark to commit once the delta is applied
+ */
+public record STDeltaResult(long upserts, List<String> deletedIds, STWatermark watermark) {}
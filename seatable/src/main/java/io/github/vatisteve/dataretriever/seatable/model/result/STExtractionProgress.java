@@ -0,0 +1,14 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+/**
+ * Snapshot of the jobs submitted to an orchestrator
+ * @param failed    Jobs failed, timed out or cancelled
+ * @param rows      Rows delivered to the sinks so far, including the running jobs
+ */
+public record STExtractionProgress(int submitted, int queued, int running, int succeeded, int failed, long rows) {
+
+    public boolean isDone() {
+        return queued == 0 && running == 0;
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of a run of extraction jobs, the failures of some jobs don't fail the run
+ * @param results   Results in the submission order of the jobs
+ */
+public record STExtractionReport(List<STJobResult> results, Duration elapsed) {
+
+    public List<STJobResult> failures() {
+        return results.stream().filter(result -> !result.isSuccess()).toList();
+    }
+
+    public boolean isSuccess() {
+        return results.stream().allMatch(STJobResult::isSuccess);
+    }
+
+    public long rows() {
+        return results.stream().mapToLong(STJobResult::rows).sum();
+    }
+
+}
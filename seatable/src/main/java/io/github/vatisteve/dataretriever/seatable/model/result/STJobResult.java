@@ -0,0 +1,19 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+import io.github.vatisteve.dataretriever.seatable.enums.STJobStatus;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one extraction job
+ * @param rows      Number of rows delivered to the sink, also when the job failed on the way
+ * @param elapsed   Time from the start of the job, {@link Duration#ZERO} if it never started
+ * @param error     Cause of the failure, {@code null} if succeeded
+ */
+public record STJobResult(String name, STJobStatus status, long rows, Duration elapsed, Throwable error) {
+
+    public boolean isSuccess() {
+        return status == STJobStatus.SUCCEEDED;
+    }
+
+}
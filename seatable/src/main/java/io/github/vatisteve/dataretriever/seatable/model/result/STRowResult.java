@@ -0,0 +1,13 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+/**
+ * Outcome of one written row
+ * @param index     Position of the row in the written input
+ * @param rowId     {@code _id} of the row, {@code null} if unknown (e.g. failed append)
+ * @param error     Error message, {@code null} if the row is written
+ */
+public record STRowResult(long index, String rowId, String error) {
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * State of a table after a delta sync
+ * @param mtime     Latest {@code _mtime} of the synced rows
+ * @param rowIds    {@code _id} of all rows of the table, to detect the deleted rows
+ */
+public record STWatermark(Instant mtime, Set<String> rowIds) {}
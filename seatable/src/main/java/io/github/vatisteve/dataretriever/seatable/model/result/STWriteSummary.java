@@ -0,0 +1,7 @@
+package io.github.vatisteve.dataretriever.seatable.model.result;
+
+/**
+ * @param succeeded Number of written rows
+ * @param failed    Number of rows not written, reported with their error
+ */
+public record STWriteSummary(long succeeded, long failed) {}
@@ -0,0 +1,18 @@
+package io.github.vatisteve.dataretriever.seatable.store;
+
+import io.github.vatisteve.dataretriever.seatable.model.result.STCheckpoint;
+
+import java.util.Optional;
+
+/**
+ * Keep the {@link STCheckpoint} of each table while it is extracted
+ */
+public interface STCheckpointStore {
+
+    Optional<STCheckpoint> load(String baseUuid, String tableName);
+
+    void save(String baseUuid, String tableName, STCheckpoint checkpoint);
+
+    void remove(String baseUuid, String tableName);
+
+}
@@ -0,0 +1,72 @@
+package io.github.vatisteve.dataretriever.seatable.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.vatisteve.dataretriever.seatable.model.result.STCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * One JSON file per table in a local directory, replaced atomically on save
+ */
+@Slf4j
+public class STFileCheckpointStore implements STCheckpointStore {
+
+    private final Path directory;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public STFileCheckpointStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Optional<STCheckpoint> load(String baseUuid, String tableName) {
+        Path file = file(baseUuid, tableName);
+        if (!Files.exists(file)) return Optional.empty();
+        try {
+            JsonNode node = mapper.readTree(file.toFile());
+            JsonNode lastKey = node.get("last_key");
+            return Optional.of(new STCheckpoint(node.get("fingerprint").asText(), node.get("offset").asLong(),
+                    lastKey == null || lastKey.isNull() ? null : lastKey, node.get("delivered").asLong()));
+        } catch (IOException e) {
+            log.error("Couldn't read the checkpoint {}: {}", file, e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void save(String baseUuid, String tableName, STCheckpoint checkpoint) {
+        Path file = file(baseUuid, tableName);
+        ObjectNode node = mapper.createObjectNode()
+                .put("fingerprint", checkpoint.fingerprint())
+                .put("offset", checkpoint.offset())
+                .put("delivered", checkpoint.delivered());
+        node.set("last_key", checkpoint.lastKey());
+        try {
+            Files.createDirectories(directory);
+            STFileWatermarkStore.replace(file, mapper.writeValueAsBytes(node));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't save the checkpoint " + file, e);
+        }
+    }
+
+    @Override
+    public void remove(String baseUuid, String tableName) {
+        try {
+            Files.deleteIfExists(file(baseUuid, tableName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(String baseUuid, String tableName) {
+        return directory.resolve(STFileWatermarkStore.fileName(baseUuid, tableName) + ".checkpoint.json");
+    }
+
+}
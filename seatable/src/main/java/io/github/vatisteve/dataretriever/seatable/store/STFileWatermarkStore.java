@@ -0,0 +1,101 @@
+package io.github.vatisteve.dataretriever.seatable.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.vatisteve.dataretriever.seatable.model.result.STWatermark;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * One JSON file per table in a local directory, replaced atomically on save
+ */
+@Slf4j
+public class STFileWatermarkStore implements STWatermarkStore {
+
+    private final Path directory;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public STFileWatermarkStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Optional<STWatermark> load(String baseUuid, String tableName) {
+        Path file = file(baseUuid, tableName);
+        if (!Files.exists(file)) return Optional.empty();
+        try {
+            JsonNode node = mapper.readTree(file.toFile());
+            Set<String> rowIds = new HashSet<>();
+            node.get("row_ids").forEach(id -> rowIds.add(id.asText()));
+            return Optional.of(new STWatermark(Instant.parse(node.get("mtime").asText()), rowIds));
+        } catch (IOException e) {
+            log.error("Couldn't read the watermark {}: {}", file, e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void save(String baseUuid, String tableName, STWatermark watermark) {
+        Path file = file(baseUuid, tableName);
+        ObjectNode node = mapper.createObjectNode().put("mtime", watermark.mtime().toString());
+        ArrayNode rowIds = node.putArray("row_ids");
+        watermark.rowIds().forEach(rowIds::add);
+        try {
+            Files.createDirectories(directory);
+            replace(file, mapper.writeValueAsBytes(node));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't save the watermark " + file, e);
+        }
+    }
+
+    @Override
+    public void remove(String baseUuid, String tableName) {
+        try {
+            Files.deleteIfExists(file(baseUuid, tableName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replace the {@code file} atomically, the content is on the disk before the file replaces the previous one and
+     * the temporary file is deleted on failure
+     */
+    static void replace(Path file, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    static String fileName(String baseUuid, String tableName) {
+        return baseUuid + '_' + tableName.replaceAll("[^\\w.-]", "_") + '_' + Integer.toHexString(tableName.hashCode());
+    }
+
+    private Path file(String baseUuid, String tableName) {
+        return directory.resolve(fileName(baseUuid, tableName) + ".watermark.json");
+    }
+
+}
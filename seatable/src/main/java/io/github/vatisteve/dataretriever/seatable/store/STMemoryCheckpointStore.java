@@ -0,0 +1,31 @@
+package io.github.vatisteve.dataretriever.seatable.store;
+
+import io.github.vatisteve.dataretriever.seatable.model.result.STCheckpoint;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checkpoints kept for the lifetime of the process, to resume a failed extraction without restarting the process
+ */
+public class STMemoryCheckpointStore implements STCheckpointStore {
+
+    private final Map<String, STCheckpoint> checkpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<STCheckpoint> load(String baseUuid, String tableName) {
+        return Optional.ofNullable(checkpoints.get(baseUuid + '/' + tableName));
+    }
+
+    @Override
+    public void save(String baseUuid, String tableName, STCheckpoint checkpoint) {
+        checkpoints.put(baseUuid + '/' + tableName, checkpoint);
+    }
+
+    @Override
+    public void remove(String baseUuid, String tableName) {
+        checkpoints.remove(baseUuid + '/' + tableName);
+    }
+
+}
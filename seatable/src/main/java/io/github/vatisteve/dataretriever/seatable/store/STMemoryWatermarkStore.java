@@ -0,0 +1,31 @@
+package io.github.vatisteve.dataretriever.seatable.store;
+
+import io.github.vatisteve.dataretriever.seatable.model.result.STWatermark;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watermarks kept for the lifetime of the process
+ */
+public class STMemoryWatermarkStore implements STWatermarkStore {
+
+    private final Map<String, STWatermark> watermarks = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<STWatermark> load(String baseUuid, String tableName) {
+        return Optional.ofNullable(watermarks.get(baseUuid + '/' + tableName));
+    }
+
+    @Override
+    public void save(String baseUuid, String tableName, STWatermark watermark) {
+        watermarks.put(baseUuid + '/' + tableName, watermark);
+    }
+
+    @Override
+    public void remove(String baseUuid, String tableName) {
+        watermarks.remove(baseUuid + '/' + tableName);
+    }
+
+}
@@ -0,0 +1,187 @@
+package io.github.vatisteve.dataretriever.seatable.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import io.github.vatisteve.dataretriever.seatable.STRowSink;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.github.vatisteve.dataretriever.seatable.store.STSnapshotStore.*;
+
+/**
+ * Read-only view of a snapshot: the row blocks are memory-mapped and the rows resolved from the offset index
+ * (latest record of each {@code _id}, in the order of their first write), no API call is involved
+ * <br />
+ * {@link #rawRow(int)} and {@link #scan(STRowSink, int)} read the mapped bytes directly,
+ * the view stays consistent while the snapshot is appended or compacted
+ *
+ * @see STSnapshotStore#open(String, String)
+ */
+@Slf4j
+public class STSnapshot {
+
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    private final ObjectMapper mapper;
+    private final MappedByteBuffer[] segments;
+    /**
+     * Record entries of the rows, in row order
+     */
+    private final long[] rows;
+    private final Map<String, Integer> positions = new HashMap<>();
+    /**
+     * Records replaced by a newer one of the same {@code _id}, or deleted
+     */
+    @Getter
+    private final long deadRecords;
+    /**
+     * Entries at the start of the index up to the first invalid one
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final long validEntries;
+
+    STSnapshot(ObjectMapper mapper, Path directory, String prefix) throws IOException {
+        this.mapper = mapper;
+        List<MappedByteBuffer> mapped = new ArrayList<>();
+        for (int segment = 0; Files.exists(segmentFile(directory, prefix, segment)); segment++) {
+            try (FileChannel channel = FileChannel.open(segmentFile(directory, prefix, segment))) {
+                mapped.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+        segments = mapped.toArray(MappedByteBuffer[]::new);
+        LongBuffer index;
+        try (FileChannel channel = FileChannel.open(indexFile(directory, prefix))) {
+            long size = channel.size() - channel.size() % Long.BYTES;
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asLongBuffer();
+        }
+        // key: _id, or the entry itself for a row without _id
+        Map<Object, Long> live = new LinkedHashMap<>();
+        long records = 0;
+        while (index.hasRemaining()) {
+            long entry = index.get();
+            if (!isValid(entry)) break; // index entry of an interrupted write
+            records++;
+            ByteBuffer segment = segments[segment(entry)];
+            int offset = offset(entry);
+            String id = readId(segment, offset);
+            if (segment.get(offset + Integer.BYTES) == TOMBSTONE) {
+                live.remove(id);
+            } else {
+                live.put(id == null ? (Object) entry : id, entry);
+            }
+        }
+        rows = new long[live.size()];
+        int row = 0;
+        for (Map.Entry<Object, Long> entry : live.entrySet()) {
+            if (entry.getKey() instanceof String id) positions.put(id, row);
+            rows[row++] = entry.getValue();
+        }
+        validEntries = records;
+        deadRecords = records - rows.length;
+        log.trace("Snapshot {} opened: {} rows, {} dead records", prefix, rows.length, deadRecords);
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * @return {@code _id} of the row, {@code null} if the row was written without it
+     */
+    public String id(int row) {
+        long entry = rows[row];
+        return readId(segments[segment(entry)], offset(entry));
+    }
+
+    /**
+     * @return Read-only buffer over the mapped JSON bytes of the row, without copy
+     */
+    public ByteBuffer rawRow(int row) {
+        long entry = rows[row];
+        ByteBuffer segment = segments[segment(entry)];
+        int offset = offset(entry);
+        int length = segment.getInt(offset);
+        int idLength = Short.toUnsignedInt(segment.getShort(offset + Integer.BYTES + Byte.BYTES));
+        return segment.slice(offset + RECORD_HEADER + idLength, length).asReadOnlyBuffer();
+    }
+
+    public ObjectNode row(int row) {
+        try {
+            return (ObjectNode) mapper.readTree(new ByteBufferBackedInputStream(rawRow(row)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupted snapshot row " + row, e);
+        }
+    }
+
+    /**
+     * Random access by {@code _id}
+     */
+    public Optional<ObjectNode> rowById(String id) {
+        Integer row = positions.get(id);
+        return row == null ? Optional.empty() : Optional.of(row(row));
+    }
+
+    /**
+     * Deliver all the rows to the {@code sink} as {@code streamData} would, in pages of {@code pageSize} rows
+     * @return Number of delivered rows
+     */
+    public long scan(STRowSink sink, int pageSize) {
+        ArrayNode page = mapper.createArrayNode();
+        for (int row = 0; row < rows.length; row++) {
+            page.add(row(row));
+            if (page.size() == pageSize) {
+                sink.onPage(page);
+                page = mapper.createArrayNode();
+            }
+        }
+        if (!page.isEmpty()) sink.onPage(page);
+        sink.onComplete();
+        return rows.length;
+    }
+
+    private boolean isValid(long entry) {
+        int segment = segment(entry);
+        if (segment >= segments.length) return false;
+        long offset = entry & OFFSET_MASK;
+        if (offset + RECORD_HEADER > segments[segment].limit()) return false;
+        ByteBuffer buffer = segments[segment];
+        int idLength = Short.toUnsignedInt(buffer.getShort((int) offset + Integer.BYTES + Byte.BYTES));
+        return offset + RECORD_HEADER + idLength + buffer.getInt((int) offset) <= buffer.limit();
+    }
+
+    private static String readId(ByteBuffer segment, int offset) {
+        int idLength = Short.toUnsignedInt(segment.getShort(offset + Integer.BYTES + Byte.BYTES));
+        if (idLength == 0) return null;
+        byte[] id = new byte[idLength];
+        segment.get(offset + RECORD_HEADER, id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private static int segment(long entry) {
+        return (int) (entry >>> OFFSET_BITS);
+    }
+
+    private static int offset(long entry) {
+        return (int) (entry & OFFSET_MASK);
+    }
+
+}
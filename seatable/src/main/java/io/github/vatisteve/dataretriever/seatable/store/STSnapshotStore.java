@@ -0,0 +1,180 @@
+package io.github.vatisteve.dataretriever.seatable.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vatisteve.dataretriever.seatable.STDeltaSync;
+import io.github.vatisteve.dataretriever.seatable.model.result.STDeltaResult;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Local snapshots of SeaTable tables, one per base and table in a directory, read through memory-mapped files
+ * <br />
+ * A snapshot is a generation of append-only row blocks ({@code .rows} segments) and an index of the record offsets
+ * ({@code .idx}), the current generation is named by a pointer file replaced atomically.
+ * Each record is {@code [int json length][byte kind][short id length][_id][row json]},
+ * a newer record of the same {@code _id} replaces the previous one and a tombstone record deletes it
+ *
+ * @see STSnapshot
+ * @see STSnapshotWriter
+ */
+@Slf4j
+@Getter
+public class STSnapshotStore {
+
+    static final byte ROW = 0;
+    static final byte TOMBSTONE = 1;
+    static final int RECORD_HEADER = Integer.BYTES + Byte.BYTES + Short.BYTES;
+    static final int OFFSET_BITS = 40;
+
+    private final Path directory;
+    private final ObjectMapper mapper = new ObjectMapper();
+    /**
+     * Maximal size of a row block file, each one is mapped into a single buffer
+     */
+    private long segmentSize = 1L << 30;
+
+    public STSnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param segmentSize Up to {@link Integer#MAX_VALUE} bytes, the size of a mapped buffer and of a record offset
+     */
+    public void setSegmentSize(long segmentSize) {
+        if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE || segmentSize >= 1L << OFFSET_BITS) {
+            throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @param append {@code true} to add the rows to the current snapshot,
+     *               {@code false} to write a new snapshot replacing the current one once the writer is closed
+     */
+    public STSnapshotWriter writer(String baseUuid, String tableName, boolean append) throws IOException {
+        Files.createDirectories(directory);
+        String name = name(baseUuid, tableName);
+        int current = generation(name);
+        if (append && current >= 0) return new STSnapshotWriter(this, name, current, false);
+        return new STSnapshotWriter(this, name, current + 1, true);
+    }
+
+    /**
+     * @return The current snapshot of the table, empty if none is written yet
+     */
+    public Optional<STSnapshot> open(String baseUuid, String tableName) throws IOException {
+        String name = name(baseUuid, tableName);
+        int generation = generation(name);
+        if (generation < 0) return Optional.empty();
+        return Optional.of(new STSnapshot(mapper, directory, prefix(name, generation)));
+    }
+
+    /**
+     * Apply a delta sync to the snapshot of its table (the whole table is synced if no snapshot exists yet),
+     * then commit the watermark of the sync
+     * <br />
+     * The snapshot is compacted once it holds more replaced or deleted records than rows
+     */
+    public CompletableFuture<STSnapshot> refresh(STDeltaSync deltaSync) {
+        String baseUuid = deltaSync.getBaseInfo().uuid();
+        String tableName = deltaSync.getConnectionInfo().getTableName();
+        STSnapshotWriter writer;
+        try {
+            if (generation(name(baseUuid, tableName)) < 0) deltaSync.getWatermarkStore().remove(baseUuid, tableName);
+            writer = writer(baseUuid, tableName, true);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return deltaSync.sync(writer).thenApply(delta -> {
+            try {
+                writer.delete(delta.deletedIds());
+                writer.close();
+                deltaSync.commit(delta);
+                STSnapshot snapshot = open(baseUuid, tableName).orElseThrow();
+                log.debug("Snapshot of table {} refreshed: {}", tableName, summary(delta, snapshot));
+                if (snapshot.getDeadRecords() > snapshot.size()) {
+                    compact(baseUuid, tableName);
+                    snapshot = open(baseUuid, tableName).orElseThrow();
+                }
+                return snapshot;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((snapshot, e) -> {
+            if (e != null) writer.abort();
+        });
+    }
+
+    /**
+     * Rewrite the current snapshot without the replaced and deleted records
+     */
+    public void compact(String baseUuid, String tableName) throws IOException {
+        Optional<STSnapshot> current = open(baseUuid, tableName);
+        if (current.isEmpty()) return;
+        try (STSnapshotWriter writer = writer(baseUuid, tableName, false)) {
+            STSnapshot snapshot = current.get();
+            log.debug("Compact the snapshot of table {}: {} rows, {} dead records", tableName, snapshot.size(), snapshot.getDeadRecords());
+            for (int row = 0; row < snapshot.size(); row++) {
+                writer.writeRaw(snapshot.id(row), snapshot.rawRow(row));
+            }
+        }
+    }
+
+    public void remove(String baseUuid, String tableName) throws IOException {
+        String name = name(baseUuid, tableName);
+        int generation = generation(name);
+        Files.deleteIfExists(pointer(name));
+        if (generation >= 0) deleteGeneration(name, generation);
+    }
+
+    int generation(String name) throws IOException {
+        Path pointer = pointer(name);
+        if (!Files.exists(pointer)) return -1;
+        return Integer.parseInt(Files.readString(pointer, StandardCharsets.UTF_8).trim());
+    }
+
+    void switchGeneration(String name, int generation) throws IOException {
+        STFileWatermarkStore.replace(pointer(name), Integer.toString(generation).getBytes(StandardCharsets.UTF_8));
+    }
+
+    void deleteGeneration(String name, int generation) throws IOException {
+        String prefix = prefix(name, generation);
+        Files.deleteIfExists(indexFile(directory, prefix));
+        for (int segment = 0; Files.deleteIfExists(segmentFile(directory, prefix, segment)); segment++) {
+            log.trace("Deleted segment {} of {}", segment, prefix);
+        }
+    }
+
+    static String prefix(String name, int generation) {
+        return name + ".g" + generation;
+    }
+
+    static Path indexFile(Path directory, String prefix) {
+        return directory.resolve(prefix + ".idx");
+    }
+
+    static Path segmentFile(Path directory, String prefix, int segment) {
+        return directory.resolve(prefix + "." + segment + ".rows");
+    }
+
+    private Path pointer(String name) {
+        return directory.resolve(name + ".snapshot");
+    }
+
+    private static String name(String baseUuid, String tableName) {
+        return STFileWatermarkStore.fileName(baseUuid, tableName);
+    }
+
+    private static String summary(STDeltaResult delta, STSnapshot snapshot) {
+        return delta.upserts() + " upserts, " + delta.deletedIds().size() + " deletions, " + snapshot.size() + " rows";
+    }
+
+}
@@ -0,0 +1,183 @@
+package io.github.vatisteve.dataretriever.seatable.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.STDeltaSync;
+import io.github.vatisteve.dataretriever.seatable.STRowSink;
+import io.github.vatisteve.dataretriever.seatable.STSqlQuery;
+import io.github.vatisteve.dataretriever.seatable.STTableNameQuery;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+import static io.github.vatisteve.dataretriever.seatable.store.STSnapshotStore.*;
+
+/**
+ * Append the streamed rows to a snapshot, usable as the sink of {@code streamData}
+ * <br />
+ * The rows are written to the row blocks before their offsets are added to the index,
+ * a write interrupted in between leaves unreachable bytes. The index entries of records not fully written are
+ * dropped by the next writer of the snapshot
+ * <br />
+ * The rows are identified by their {@code _id}: the rows of {@link STDeltaSync} keep it, the ones of
+ * {@link STTableNameQuery} and {@link STSqlQuery} don't. A row written without {@code _id} is only reachable by
+ * position, it is never replaced nor deleted, and {@link STSnapshot#rowById(String)} doesn't find it
+ *
+ * @see STSnapshotStore#writer(String, String, boolean)
+ */
+@Slf4j
+public class STSnapshotWriter implements STRowSink, AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String ROW_ID = "_id";
+
+    private final STSnapshotStore store;
+    private final String name;
+    private final int generation;
+    private final boolean newGeneration;
+    private final String prefix;
+    private final ByteBuffer dataBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final FileChannel index;
+    private FileChannel data;
+    private int segment;
+    private long position;
+    private boolean closed;
+
+    STSnapshotWriter(STSnapshotStore store, String name, int generation, boolean newGeneration) throws IOException {
+        this.store = store;
+        this.name = name;
+        this.generation = generation;
+        this.newGeneration = newGeneration;
+        this.prefix = prefix(name, generation);
+        Path directory = store.getDirectory();
+        if (newGeneration) store.deleteGeneration(name, generation); // leftover of an aborted writer
+        long validIndex = newGeneration ? 0 : new STSnapshot(store.getMapper(), directory, prefix).getValidEntries() * Long.BYTES;
+        index = FileChannel.open(indexFile(directory, prefix), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (index.size() > validIndex) {
+            log.warn("Drop {} index entries of an interrupted write of the snapshot {}", (index.size() - validIndex) / Long.BYTES, prefix);
+            index.truncate(validIndex);
+        }
+        index.position(index.size());
+        while (Files.exists(segmentFile(directory, prefix, segment + 1))) segment++;
+        openSegment();
+    }
+
+    @Override
+    public void onPage(ArrayNode rows) {
+        try {
+            for (JsonNode row : rows) {
+                JsonNode id = row.get(ROW_ID);
+                write(ROW, id == null ? null : id.asText(), ByteBuffer.wrap(store.getMapper().writeValueAsBytes(row)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't write the snapshot " + prefix, e);
+        }
+    }
+
+    /**
+     * Delete the rows from the snapshot
+     */
+    public void delete(Collection<String> ids) throws IOException {
+        for (String id : ids) {
+            write(TOMBSTONE, id, ByteBuffer.allocate(0));
+        }
+    }
+
+    /**
+     * Copy a row record as is
+     */
+    void writeRaw(String id, ByteBuffer json) throws IOException {
+        write(ROW, id, json);
+    }
+
+    /**
+     * Flush the written rows and make them visible to the next {@link STSnapshot}
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try (index; FileChannel ignored = data) {
+            flush();
+        }
+        if (newGeneration) {
+            store.switchGeneration(name, generation);
+            if (generation > 0) store.deleteGeneration(name, generation - 1);
+        } else if (store.generation(name) < 0) {
+            store.switchGeneration(name, generation);
+        }
+    }
+
+    /**
+     * Close without flushing the buffered rows, a new snapshot is discarded
+     */
+    void abort() {
+        if (closed) return;
+        closed = true;
+        try (index; FileChannel ignored = data) {
+            if (newGeneration) store.deleteGeneration(name, generation);
+        } catch (IOException e) {
+            log.warn("Couldn't abort the snapshot {}: {}", prefix, e.getMessage());
+        }
+    }
+
+    private void write(byte kind, String id, ByteBuffer json) throws IOException {
+        byte[] idBytes = id == null ? new byte[0] : id.getBytes(StandardCharsets.UTF_8);
+        int recordSize = RECORD_HEADER + idBytes.length + json.remaining();
+        if (position > 0 && position + recordSize > store.getSegmentSize()) {
+            flush();
+            data.close();
+            segment++;
+            openSegment();
+        }
+        if (recordSize > dataBuffer.remaining()) flushData();
+        ByteBuffer target = recordSize > dataBuffer.capacity() ? ByteBuffer.allocate(recordSize) : dataBuffer;
+        target.putInt(json.remaining()).put(kind).putShort((short) idBytes.length).put(idBytes).put(json.duplicate());
+        if (target != dataBuffer) {
+            target.flip();
+            while (target.hasRemaining()) data.write(target);
+        }
+        if (!indexBuffer.hasRemaining()) flushIndex();
+        indexBuffer.putLong(((long) segment << OFFSET_BITS) | position);
+        position += recordSize;
+    }
+
+    private void openSegment() throws IOException {
+        data = FileChannel.open(segmentFile(store.getDirectory(), prefix, segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        position = data.size();
+        data.position(position);
+    }
+
+    /**
+     * Rows before their index entries
+     */
+    private void flush() throws IOException {
+        flushData();
+        data.force(false);
+        flushIndex();
+        index.force(false);
+    }
+
+    private void flushData() throws IOException {
+        dataBuffer.flip();
+        while (dataBuffer.hasRemaining()) data.write(dataBuffer);
+        dataBuffer.clear();
+    }
+
+    private void flushIndex() throws IOException {
+        if (indexBuffer.position() > 0 && dataBuffer.position() > 0) flushData(); // the records of the entries first
+        indexBuffer.flip();
+        while (indexBuffer.hasRemaining()) index.write(indexBuffer);
+        indexBuffer.clear();
+    }
+
+}
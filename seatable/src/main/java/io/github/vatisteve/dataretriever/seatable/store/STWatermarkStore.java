@@ -0,0 +1,18 @@
+package io.github.vatisteve.dataretriever.seatable.store;
+
+import io.github.vatisteve.dataretriever.seatable.model.result.STWatermark;
+
+import java.util.Optional;
+
+/**
+ * Keep the {@link STWatermark} of each table between the delta syncs
+ */
+public interface STWatermarkStore {
+
+    Optional<STWatermark> load(String baseUuid, String tableName);
+
+    void save(String baseUuid, String tableName, STWatermark watermark);
+
+    void remove(String baseUuid, String tableName);
+
+}
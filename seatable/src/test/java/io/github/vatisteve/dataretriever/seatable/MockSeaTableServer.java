@@ -0,0 +1,332 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in of a SeaTable server serving a single synthetic table, used by offline tests
+ * <br />
+ * The rows only contain the first two columns, as a SeaTable server before 4.4 omits the empty cells
+ */
+class MockSeaTableServer implements AutoCloseable {
+
+    static final String BASE_UUID = "mock-base-uuid";
+    static final String BASE_TOKEN = "mock-base-token";
+    static final int SQL_ROW_CAP = 10000;
+
+    private final HttpServer server;
+    static final String ROW_MTIME = "2024-07-26T00:00:00.000+00:00";
+
+    private final int columnCount;
+    private volatile int rowCount;
+    @Getter
+    private final AtomicInteger rowRequests = new AtomicInteger();
+    @Getter
+    private final AtomicInteger sqlRequests = new AtomicInteger();
+    @Getter
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    @Getter
+    private final AtomicInteger columnRequests = new AtomicInteger();
+    @Getter
+    private final AtomicInteger compressedResponses = new AtomicInteger();
+    @Getter
+    private final AtomicInteger writeRequests = new AtomicInteger();
+    @Getter
+    private volatile Map<String, String> lastRowsQuery;
+    @Getter
+    private volatile String lastSql;
+    private final AtomicInteger failingWrites = new AtomicInteger();
+    private final AtomicInteger failingRows = new AtomicInteger();
+    private volatile int failingRowsFrom;
+    private final AtomicInteger tokenGeneration = new AtomicInteger();
+    private volatile int throttleEvery;
+    private volatile boolean joinMetadataLast;
+
+    MockSeaTableServer(int rowCount, int columnCount) throws IOException {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/api/v2.1/dtable/app-access-token/", exchange -> {
+            tokenRequests.incrementAndGet();
+            respond(exchange, 200, "{\"access_token\":\"" + token() + "\",\"dtable_uuid\":\"" + BASE_UUID + "\",\"dtable_name\":\"mock\"}");
+        });
+        server.createContext("/api-gateway/api/v2/dtables/" + BASE_UUID + "/rows/", this::rows);
+        server.createContext("/api-gateway/api/v2/dtables/" + BASE_UUID + "/columns/", this::columns);
+        server.createContext("/api-gateway/api/v2/dtables/" + BASE_UUID + "/sql", this::sql);
+        // SeaTable before 4.4
+        server.createContext("/dtable-server/api/v1/dtables/" + BASE_UUID + "/rows/", this::rows);
+        server.createContext("/dtable-server/api/v1/dtables/" + BASE_UUID + "/columns/", this::columns);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Connection to the table of this server, to be completed by the test
+     */
+    STTableNameConnection.STTableNameConnectionBuilder<?, ?> tableConnection() {
+        return STTableNameConnection.builder()
+                .url(url())
+                .apiKey("mock")
+                .version(STVersion.FROM_4_4)
+                .tableName("table 1");
+    }
+
+    /**
+     * Answer every n-th request of rows with {@code 429 Too Many Requests}, {@code 0} to disable
+     */
+    void throttleEvery(int n) {
+        this.throttleEvery = n;
+    }
+
+    /**
+     * Answer the next {@code n} write requests with {@code 502 Bad Gateway}
+     */
+    void failNextWrites(int n) {
+        failingWrites.set(n);
+    }
+
+    /**
+     * Answer the next {@code n} requests of rows from offset {@code start} with {@code 500 Internal Server Error}
+     */
+    void failRowsFrom(int start, int n) {
+        failingRowsFrom = start;
+        failingRows.set(n);
+    }
+
+    /**
+     * Put the metadata of the join statements after their results in the response
+     */
+    void joinMetadataLast(boolean last) {
+        this.joinMetadataLast = last;
+    }
+
+    /**
+     * Delete the last rows of the table
+     */
+    void truncate(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Reject the base tokens given until now
+     */
+    void rotateToken() {
+        tokenGeneration.incrementAndGet();
+    }
+
+    private String token() {
+        return BASE_TOKEN + "-" + tokenGeneration.get();
+    }
+
+    private void rows(HttpExchange exchange) throws IOException {
+        if (!("Bearer " + token()).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            respond(exchange, 401, "{\"error_message\":\"Invalid token\"}");
+            return;
+        }
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            write(exchange);
+            return;
+        }
+        if (throttleEvery > 0 && rowRequests.incrementAndGet() % throttleEvery == 0) {
+            exchange.getResponseHeaders().add("Retry-After", "0");
+            respond(exchange, 429, "{\"error_message\":\"Too many requests\"}");
+            return;
+        }
+        if (throttleEvery == 0) rowRequests.incrementAndGet();
+        Map<String, String> params = query(exchange);
+        lastRowsQuery = params;
+        int start = Integer.parseInt(params.getOrDefault("start", "0"));
+        int limit = Integer.parseInt(params.getOrDefault("limit", "1000"));
+        if (start >= failingRowsFrom && failingRows.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+            respond(exchange, 500, "{\"error_message\":\"Internal server error\"}");
+            return;
+        }
+        StringBuilder body = new StringBuilder("{\"rows\":[");
+        for (int i = start; i < Math.min(start + limit, rowCount); i++) {
+            if (i > start) body.append(',');
+            body.append(row(i));
+        }
+        respond(exchange, 200, body.append("]}").toString());
+    }
+
+    /**
+     * Batch append, update and delete, a batch containing a row with the column {@code invalid} is rejected
+     */
+    private void write(HttpExchange exchange) throws IOException {
+        writeRequests.incrementAndGet();
+        if (failingWrites.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+            respond(exchange, 502, "Bad Gateway");
+            return;
+        }
+        JsonNode body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new ObjectMapper().readTree(in);
+        }
+        switch (exchange.getRequestMethod()) {
+            case "POST" -> {
+                StringBuilder ids = new StringBuilder();
+                for (JsonNode row : body.get("rows")) {
+                    if (row.has("invalid")) {
+                        respond(exchange, 400, "{\"error_message\":\"Invalid column\"}");
+                        return;
+                    }
+                    if (!ids.isEmpty()) ids.append(',');
+                    ids.append("{\"_id\":\"new").append(row.path("col0").asText()).append("\"}");
+                }
+                respond(exchange, 200, "{\"first_row\":{},\"row_ids\":[" + ids + "]}");
+            }
+            case "PUT" -> respond(exchange, 200, "{\"success\":true}");
+            case "DELETE" -> respond(exchange, 200, "{\"deleted_rows\":" + body.get("row_ids").size() + "}");
+            default -> respond(exchange, 405, "{}");
+        }
+    }
+
+    private void columns(HttpExchange exchange) throws IOException {
+        columnRequests.incrementAndGet();
+        StringBuilder body = new StringBuilder("{\"columns\":[");
+        for (int c = 0; c < columnCount; c++) {
+            if (c > 0) body.append(',');
+            if (c == 1) {
+                body.append("{\"key\":\"k1\",\"type\":\"text\",\"name\":\"col1\",\"data\":null}");
+                continue;
+            }
+            if (c == 3) {
+                body.append("{\"key\":\"k3\",\"type\":\"rate\",\"name\":\"col3\",")
+                        .append("\"data\":{\"rate_max_number\":5,\"rate_style_color\":\"#FF8000\",\"rate_style_type\":\"dtable-icon-rate\"}}");
+                continue;
+            }
+            body.append("{\"key\":\"k").append(c).append("\",\"type\":\"number\",\"name\":\"col").append(c)
+                    .append("\",\"data\":{\"format\":\"number\",\"precision\":2,\"enable_precision\":false}}");
+        }
+        respond(exchange, 200, body.append("]}").toString());
+    }
+
+    static String row(int i) {
+        return "{\"_id\":\"" + rowId(i) + "\",\"_mtime\":\"" + ROW_MTIME + "\",\"col0\":" + i + ",\"col1\":\"value " + i + "\"}";
+    }
+
+    static String rowId(int i) {
+        return String.format("row%06d", i);
+    }
+
+    /**
+     * Understands {@code COUNT(*)}, {@code `_id` > 'id'}, {@code WHERE `_mtime` > 'time'}, {@code LIMIT n}
+     * and {@code OFFSET m}, the other clauses are ignored
+     */
+    private void sql(HttpExchange exchange) throws IOException {
+        sqlRequests.incrementAndGet();
+        String sql;
+        try (InputStream in = exchange.getRequestBody()) {
+            sql = new ObjectMapper().readTree(in).get("sql").asText();
+        }
+        lastSql = sql;
+        if (sql.contains("COUNT(*)")) {
+            respond(exchange, 200, "{\"success\":true,\"is_join_stmt\":false,\"results\":[{\"COUNT(*)\":" + rowCount + "}]}");
+            return;
+        }
+        Matcher modified = Pattern.compile("WHERE `_mtime` > '([^']+)'").matcher(sql);
+        if (modified.find() && !OffsetDateTime.parse(modified.group(1)).isBefore(OffsetDateTime.parse(ROW_MTIME))) {
+            respond(exchange, 200, "{\"success\":true,\"is_join_stmt\":false,\"results\":[]}");
+            return;
+        }
+        int from = 0;
+        Matcher where = Pattern.compile("`_id` > 'row(\\d+)'").matcher(sql);
+        if (where.find()) from = Integer.parseInt(where.group(1)) + 1;
+        Matcher offset = Pattern.compile("OFFSET (\\d+)").matcher(sql);
+        if (offset.find()) from += Integer.parseInt(offset.group(1));
+        Matcher limit = Pattern.compile("LIMIT (\\d+)").matcher(sql);
+        int count = Math.min(limit.find() ? Integer.parseInt(limit.group(1)) : 100, SQL_ROW_CAP);
+        if (sql.contains(" JOIN ")) {
+            respond(exchange, 200, joinResult(from, count));
+            return;
+        }
+        StringBuilder body = new StringBuilder("{\"success\":true,\"is_join_stmt\":false,\"results\":[");
+        for (int i = from; i < Math.min(from + count, rowCount); i++) {
+            if (i > from) body.append(',');
+            body.append(row(i));
+        }
+        respond(exchange, 200, body.append("]}").toString());
+    }
+
+    /**
+     * Rows of {@code table 1} joined with {@code table 2}, keyed by the column keys: {@code col0} of the first table,
+     * {@code col1} of the second one
+     */
+    private String joinResult(int from, int count) {
+        String metadata = "\"metadata\":[{\"id\":\"_id\",\"name\":\"_id\",\"table_name\":\"table 1\",\"type\":\"text\"},"
+                + "{\"id\":\"k0\",\"name\":\"col0\",\"table_name\":\"table 1\",\"type\":\"number\"},"
+                + "{\"id\":\"k1\",\"name\":\"col1\",\"table_name\":\"table 2\",\"type\":\"text\"}]";
+        StringBuilder results = new StringBuilder("\"results\":[");
+        for (int i = from; i < Math.min(from + count, rowCount); i++) {
+            if (i > from) results.append(',');
+            results.append("{\"_id\":\"").append(rowId(i)).append("\",\"k1\":\"value ").append(i).append("\",\"k0\":").append(i).append('}');
+        }
+        results.append(']');
+        return "{\"success\":true,\"is_join_stmt\":true,"
+                + (joinMetadataLast ? results + "," + metadata : metadata + "," + results) + "}";
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /**
+     * The body is gzip compressed if the client accepts it
+     */
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            compressedResponses.incrementAndGet();
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
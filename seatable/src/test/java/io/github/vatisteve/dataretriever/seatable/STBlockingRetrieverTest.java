@@ -0,0 +1,43 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STBlockingRetrieverTest {
+
+    @Test
+    @DisplayName("Run blocking extractions on virtual threads, parsing on the parse executor")
+    void requestDataOnVirtualThreads() throws Exception {
+        try (MockSeaTableServer server = new MockSeaTableServer(300, 2);
+             ExecutorService parseExecutor = STExecutors.newParseExecutor(2);
+             ExecutorService jobs = STExecutors.newVirtualThreadExecutor()) {
+            Set<String> parseThreads = ConcurrentHashMap.newKeySet();
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) { // within the request budget of the base
+                results.add(jobs.submit(() -> {
+                    STTableNameConnection connection = server.tableConnection()
+                            .parseExecutor(parseExecutor)
+                            .build();
+                    STBlockingRetriever retriever = STBlockingRetriever.of(new STTableNameQuery(connection, 100));
+                    return retriever.streamData(rows -> parseThreads.add(Thread.currentThread().getName()));
+                }));
+            }
+            for (Future<Long> result : results) {
+                assertEquals(300, result.get());
+            }
+            assertFalse(parseThreads.isEmpty());
+            assertTrue(parseThreads.stream().allMatch(name -> name.startsWith("seatable-parser-")));
+        }
+    }
+
+}
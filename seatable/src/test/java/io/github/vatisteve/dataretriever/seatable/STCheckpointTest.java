@@ -0,0 +1,50 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STRateLimit;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.result.STCheckpoint;
+import io.github.vatisteve.dataretriever.seatable.store.STCheckpointStore;
+import io.github.vatisteve.dataretriever.seatable.store.STFileCheckpointStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STCheckpointTest {
+
+    @Test
+    @DisplayName("Retry the failed pages and resume a failed extraction from its checkpoint")
+    void resumeFromCheckpoint(@TempDir Path directory) throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(1050, 2)) {
+            STTableNameConnection.STTableNameConnectionBuilder<?, ?> connection = server.tableConnection()
+                    .rateLimit(STRateLimit.builder().initialBackoff(Duration.ofMillis(10)).build());
+            server.failRowsFrom(500, 2);
+            assertEquals(1050, new STTableNameQuery(connection.build(), 100).requestData().join().size());
+
+            STCheckpointStore checkpoints = new STFileCheckpointStore(directory);
+            STTableNameQuery query = new STTableNameQuery(connection.maxRetries(0).build(), 100);
+            List<ArrayNode> pages = new CopyOnWriteArrayList<>();
+            server.failRowsFrom(500, 1);
+            assertThrows(CompletionException.class, () -> query.streamData(pages::add, checkpoints).join());
+            assertEquals(5, pages.size());
+            STCheckpoint checkpoint = checkpoints.load(MockSeaTableServer.BASE_UUID, "table 1").orElseThrow();
+            assertEquals(500, checkpoint.offset());
+            assertEquals(500, checkpoint.delivered());
+
+            assertEquals(1050, query.streamData(pages::add, checkpoints).join());
+            assertEquals(11, pages.size());
+            assertEquals(1049, pages.get(10).get(49).get("col0").asInt());
+            assertTrue(checkpoints.load(MockSeaTableServer.BASE_UUID, "table 1").isEmpty());
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.result.STColumnVector;
+import io.github.vatisteve.dataretriever.seatable.model.result.STColumnarResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STColumnarResultTest {
+
+    @Test
+    @DisplayName("Stream the table into typed column vectors")
+    void getColumnarData() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(1500, 3)) {
+            STTableNameConnection connection = server.tableConnection().build();
+            STColumnarResult result = new STTableNameQuery(connection).getColumnarData().join();
+            assertEquals(1500, result.getRowCount());
+            STColumnVector.DoubleVector numbers = (STColumnVector.DoubleVector) result.vector("col0");
+            assertEquals(1499.0, numbers.getDouble(1499));
+            assertEquals("value 7", ((STColumnVector.DictionaryVector) result.vector("col1")).getString(7));
+            assertTrue(result.vector("col2").isNull(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Reject the values appended to a trimmed dictionary vector")
+    void appendAfterTrim() {
+        STColumnVector.DictionaryVector vector = new STColumnVector.DictionaryVector();
+        vector.append(TextNode.valueOf("a"));
+        vector.append(NullNode.getInstance());
+        vector.trim();
+        assertEquals("a", vector.getString(0));
+        assertTrue(vector.isNull(1));
+        assertThrows(IllegalStateException.class, () -> vector.append(TextNode.valueOf("b")));
+    }
+
+}
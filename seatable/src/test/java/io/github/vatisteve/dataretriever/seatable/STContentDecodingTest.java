@@ -0,0 +1,37 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STHttpOptions;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STContentDecodingTest {
+
+    @Test
+    @DisplayName("Decompress the gzip responses unless the compression is disabled")
+    void requestCompressedData() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(2500, 2)) {
+            STTableNameConnection connection = server.tableConnection()
+                    .parallelism(2)
+                    .build();
+            ArrayNode rows = new STTableNameQuery(connection).requestData().join();
+            assertEquals(2500, rows.size());
+            assertEquals("value 2499", rows.get(2499).get("col1").asText());
+            int compressed = server.getCompressedResponses().get();
+            assertTrue(compressed >= 3);
+
+            connection.setHttpOptions(STHttpOptions.builder().compression(false).requestTimeout(Duration.ofSeconds(10)).build());
+            STTableNameQuery query = new STTableNameQuery(connection);
+            assertSame(STEndpoint.of(STTableNameConnection.builder().url(server.url()).build()), query.endpoint);
+            assertEquals(2500, query.requestData().join().size());
+            assertEquals(compressed, server.getCompressedResponses().get());
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.result.STDeltaResult;
+import io.github.vatisteve.dataretriever.seatable.store.STFileWatermarkStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STDeltaSyncTest {
+
+    @Test
+    @DisplayName("Sync only the modified rows and detect the deleted ones")
+    void sync(@TempDir Path directory) throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(12000, 2)) {
+            STTableNameConnection connection = server.tableConnection().tableName("Table1").build();
+            STDeltaSync deltaSync = new STDeltaSync(connection, new STFileWatermarkStore(directory));
+            deltaSync.setOverlap(Duration.ZERO);
+
+            ArrayNode rows = JsonNodeFactory.instance.arrayNode();
+            boolean[] completed = new boolean[1];
+            STDeltaResult first = deltaSync.sync(new STRowSink() {
+                @Override
+                public void onPage(ArrayNode page) {
+                    rows.addAll(page);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed[0] = true;
+                }
+            }).join();
+            assertTrue(completed[0]);
+            assertEquals(12000, first.upserts());
+            assertEquals(12000, rows.size());
+            assertTrue(server.getLastSql().contains("`_id` > '" + MockSeaTableServer.rowId(9999) + "'"));
+            assertFalse(server.getLastSql().contains("OFFSET"));
+            assertEquals(MockSeaTableServer.rowId(0), rows.get(0).get("_id").asText());
+            assertTrue(rows.get(0).has("_mtime"));
+            assertTrue(first.deletedIds().isEmpty());
+            assertEquals(OffsetDateTime.parse(MockSeaTableServer.ROW_MTIME).toInstant(), first.watermark().mtime());
+            deltaSync.commit(first);
+
+            server.truncate(11995);
+            STDeltaSync nextSync = new STDeltaSync(connection, new STFileWatermarkStore(directory));
+            nextSync.setOverlap(Duration.ZERO);
+            STDeltaResult second = nextSync.sync(page -> fail("No row is modified")).join();
+            assertEquals(0, second.upserts());
+            assertEquals(5, second.deletedIds().size());
+            assertTrue(second.deletedIds().contains(MockSeaTableServer.rowId(11999)));
+            assertEquals(11995, second.watermark().rowIds().size());
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STHttpOptions;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STEndpointTest {
+
+    private static STTableNameConnection connection(STHttpOptions httpOptions) {
+        return STTableNameConnection.builder()
+                .url("http://127.0.0.1:1")
+                .apiKey("mock")
+                .version(STVersion.FROM_4_4)
+                .tableName("table 1")
+                .httpOptions(httpOptions)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Reuse the cached base token and refresh it once rejected")
+    void refreshBaseToken() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(10, 2)) {
+            STTableNameConnection connection = server.tableConnection().build();
+            assertEquals(10, new STTableNameQuery(connection).requestData().join().size());
+            server.rotateToken();
+            assertEquals(10, new STTableNameQuery(connection).requestData().join().size());
+            assertEquals(2, server.getTokenRequests().get());
+        }
+    }
+
+    @Test
+    @DisplayName("Share the endpoint whatever the per request options and the executor")
+    void shareEndpoint() {
+        STEndpoint endpoint = STEndpoint.of(connection(null));
+        assertSame(endpoint, STEndpoint.of(connection(STHttpOptions.builder()
+                .compression(false)
+                .requestTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newSingleThreadExecutor())
+                .build())));
+        assertSame(endpoint, STEndpoint.of(connection(STHttpOptions.builder()
+                .executor(Executors.newSingleThreadExecutor())
+                .build())));
+        assertNotSame(endpoint, STEndpoint.of(connection(STHttpOptions.builder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build())));
+    }
+
+}
@@ -0,0 +1,88 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.enums.STJobStatus;
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STSqlQueryConnection;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.result.STExtractionProgress;
+import io.github.vatisteve.dataretriever.seatable.model.result.STExtractionReport;
+import io.github.vatisteve.dataretriever.seatable.model.result.STJobResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STExtractionOrchestratorTest {
+
+    @Test
+    @DisplayName("Run the jobs of several bases by priority and report the failures")
+    void run() throws IOException {
+        try (MockSeaTableServer first = new MockSeaTableServer(1500, 2);
+             MockSeaTableServer second = new MockSeaTableServer(700, 2);
+             STExtractionOrchestrator orchestrator = new STExtractionOrchestrator(1)) {
+            List<String> started = new CopyOnWriteArrayList<>();
+            List<STExtractionJob> jobs = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                String name = "first " + i;
+                jobs.add(STExtractionJob.builder()
+                        .name(name)
+                        .connection(table(first, "Table" + i))
+                        .sink(page -> { if (!started.contains(name)) started.add(name); })
+                        .priority(i)
+                        .build());
+            }
+            jobs.add(STExtractionJob.builder()
+                    .connection(STSqlQueryConnection.builder()
+                            .url(second.url())
+                            .apiKey("mock")
+                            .version(STVersion.FROM_4_4)
+                            .query("SELECT * FROM Table1 LIMIT 500")
+                            .build())
+                    .sink(page -> started.add("sql"))
+                    .priority(10)
+                    .build());
+            jobs.add(STExtractionJob.builder()
+                    .name("broken")
+                    .connection(table(second, "Table1"))
+                    .sink(page -> { throw new IllegalStateException("Sink is broken"); })
+                    .build());
+            jobs.add(STExtractionJob.builder()
+                    .name("slow")
+                    .connection(table(second, "Table2"))
+                    .sink(page -> {})
+                    .timeout(Duration.ofNanos(1))
+                    .build());
+            List<STJobResult> completed = new CopyOnWriteArrayList<>();
+            orchestrator.setListener(completed::add);
+
+            STExtractionReport report = orchestrator.run(jobs).join();
+            assertEquals(List.of("sql", "first 2", "first 1", "first 0"), started);
+            assertFalse(report.isSuccess());
+            assertEquals(6, completed.size());
+            assertEquals(2, report.failures().size());
+            assertEquals(STJobStatus.FAILED, report.results().get(4).status());
+            assertInstanceOf(IllegalStateException.class, report.results().get(4).error());
+            assertEquals(STJobStatus.TIMED_OUT, report.results().get(5).status());
+            assertEquals(500, report.results().get(3).rows());
+            assertEquals("SELECT * FROM Table1 LIMIT 500", report.results().get(3).name());
+            assertEquals(3 * 1500 + 500, report.results().stream().filter(STJobResult::isSuccess).mapToLong(STJobResult::rows).sum());
+            assertEquals(1, first.getTokenRequests().get());
+
+            STExtractionProgress progress = orchestrator.getProgress();
+            assertTrue(progress.isDone());
+            assertEquals(4, progress.succeeded());
+            assertEquals(2, progress.failed());
+        }
+    }
+
+    private static STTableNameConnection table(MockSeaTableServer server, String tableName) {
+        return server.tableConnection().tableName(tableName).build();
+    }
+
+}
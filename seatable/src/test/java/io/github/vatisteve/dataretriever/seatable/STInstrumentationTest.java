@@ -0,0 +1,60 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.instrument.STInstrumentation;
+import io.github.vatisteve.dataretriever.seatable.instrument.STJfrInstrumentation;
+import io.github.vatisteve.dataretriever.seatable.instrument.STMicrometerInstrumentation;
+import io.github.vatisteve.dataretriever.seatable.instrument.STRequestEvent;
+import io.github.vatisteve.dataretriever.seatable.instrument.STStageEvent;
+import io.github.vatisteve.dataretriever.seatable.instrument.STTags;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STInstrumentationTest {
+
+    @Test
+    @DisplayName("Report the requests, the parsing and the transform to the instrumentation")
+    void instrumentation() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(1050, 2)) {
+            List<STRequestEvent> requests = new CopyOnWriteArrayList<>();
+            List<STStageEvent> stages = new CopyOnWriteArrayList<>();
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            STInstrumentation recorder = new STInstrumentation() {
+                @Override
+                public void onRequest(STRequestEvent event) {
+                    requests.add(event);
+                }
+
+                @Override
+                public void onStage(STStageEvent event) {
+                    stages.add(event);
+                }
+            };
+            STTableNameConnection connection = server.tableConnection()
+                    .instrumentation(STInstrumentation.composite(recorder, new STMicrometerInstrumentation(registry), new STJfrInstrumentation()))
+                    .build();
+            String data = new STTableNameQuery(connection, 100).getData().join();
+            assertTrue(data.startsWith("[{"));
+            assertEquals(12, requests.size()); // 11 pages and the empty one
+            STRequestEvent first = requests.get(0);
+            assertEquals(new STTags(MockSeaTableServer.BASE_UUID, "table 1", STVersion.FROM_4_4), first.tags());
+            assertEquals("GET", first.method());
+            assertEquals("rows", first.endpoint());
+            assertEquals(200, first.statusCode());
+            assertTrue(first.bytes() > 0);
+            assertEquals(1050, stages.stream().filter(stage -> STStageEvent.PARSE.equals(stage.stage())).mapToLong(STStageEvent::rows).sum());
+            assertEquals(1050, stages.get(stages.size() - 1).rows());
+            assertEquals(STStageEvent.TRANSFORM, stages.get(stages.size() - 1).stage());
+            assertEquals(12, registry.get("seatable.request.wait").tag("table", "table 1").timer().count());
+        }
+    }
+
+}
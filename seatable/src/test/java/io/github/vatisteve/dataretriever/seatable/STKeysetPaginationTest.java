@@ -0,0 +1,31 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.enums.STPagination;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STKeysetPaginationTest {
+
+    @Test
+    @DisplayName("Request all data ordered by the row id through the SQL api")
+    void requestDataByKey() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(2050, 2)) {
+            STTableNameConnection connection = server.tableConnection()
+                    .pagination(STPagination.KEYSET)
+                    .build();
+            STTableNameQuery query = new STTableNameQuery(connection);
+            ArrayNode rows = query.requestData().join();
+            assertEquals(2050, rows.size());
+            assertEquals(3, server.getSqlRequests().get());
+            assertEquals(2049, rows.get(2049).get("col0").asInt());
+            assertFalse(rows.get(0).has("_id"));
+        }
+    }
+
+}
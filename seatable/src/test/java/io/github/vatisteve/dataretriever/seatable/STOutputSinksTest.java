@@ -0,0 +1,65 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STOutputSinksTest {
+
+    @Test
+    @DisplayName("Write the streamed rows as NDJSON, CSV and Arrow IPC")
+    void streamDataToSinks() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(250, 3)) {
+            STTableNameConnection connection = server.tableConnection().build();
+            STTableNameQuery query = new STTableNameQuery(connection, 100);
+            List<STColumn> columns = query.getColumns();
+
+            ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+            assertEquals(250, query.streamData(new STNdjsonSink(ndjson)).join());
+            String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(250, lines.length);
+            assertEquals(249, new ObjectMapper().readTree(lines[249]).get("col0").asInt());
+
+            ByteArrayOutputStream csv = new ByteArrayOutputStream();
+            assertEquals(250, query.streamData(new STCsvSink(csv, columns)).join());
+            lines = csv.toString(StandardCharsets.UTF_8).split("\r\n");
+            assertEquals(251, lines.length);
+            assertEquals("col0,col1,col2", lines[0]);
+            assertEquals("7,value 7,", lines[8]);
+
+            ByteArrayOutputStream arrow = new ByteArrayOutputStream();
+            try (STArrowSink sink = new STArrowSink(arrow, columns)) {
+                assertEquals(250, query.streamData(sink).join());
+            }
+            try (BufferAllocator allocator = new RootAllocator();
+                 ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(arrow.toByteArray()), allocator)) {
+                VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                int rows = 0;
+                while (reader.loadNextBatch()) {
+                    Float8Vector numbers = (Float8Vector) root.getVector("col0");
+                    assertEquals(rows, numbers.get(0));
+                    assertEquals("value " + rows, root.getVector("col1").getObject(0).toString());
+                    assertTrue(root.getVector("col2").isNull(0));
+                    rows += root.getRowCount();
+                }
+                assertEquals(250, rows);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STParallelPagesTest {
+
+    @Test
+    @DisplayName("Request all pages in parallel and keep the offset order")
+    void requestDataInParallel() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(2500, 2)) {
+            STTableNameConnection connection = server.tableConnection()
+                    .parallelism(4)
+                    .build();
+            STTableNameQuery query = new STTableNameQuery(connection, 100);
+            ArrayNode rows = query.requestData().join();
+            assertEquals(2500, rows.size());
+            assertFalse(rows.get(0).has("_id"));
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(i, rows.get(i).get("col0").asInt());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Cancel the pending pages once a page fails")
+    void cancelPendingPagesOnFailure() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(10, 2)) {
+            STTableNameConnection connection = server.tableConnection().build();
+            List<CompletableFuture<ArrayNode>> pending = new ArrayList<>();
+            STConnector.STPageRequest pageRequest = (offset, limit) -> {
+                if (offset == 0) return CompletableFuture.failedFuture(new STConnector.STConnectException("Broken page"));
+                CompletableFuture<ArrayNode> page = new CompletableFuture<>();
+                pending.add(page);
+                return page;
+            };
+            CompletableFuture<Long> processed = new STTableNameQuery(connection)
+                    .processPagesInParallel(rows -> {}, pageRequest, 100, 4, 0, Long.MAX_VALUE).toCompletableFuture();
+            assertThrows(CompletionException.class, processed::join);
+            assertEquals(3, pending.size());
+            assertTrue(pending.stream().allMatch(CompletableFuture::isCancelled));
+        }
+    }
+
+}
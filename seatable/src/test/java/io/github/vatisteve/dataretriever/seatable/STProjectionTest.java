@@ -0,0 +1,40 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.enums.STPagination;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STProjectionTest {
+
+    @Test
+    @DisplayName("Keep only the projected columns of the view")
+    void requestDataWithProjection() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(1050, 3)) {
+            STTableNameConnection connection = server.tableConnection()
+                    .viewName("Default View")
+                    .columns(List.of("col1"))
+                    .build();
+            ArrayNode rows = new STTableNameQuery(connection).requestData().join();
+            assertEquals(1050, rows.size());
+            assertEquals(1, rows.get(0).size());
+            assertEquals("value 1049", rows.get(1049).get("col1").asText());
+            assertEquals("Default View", server.getLastRowsQuery().get("view_name"));
+            assertEquals(1, new STTableNameQuery(connection).getColumnarData().join().getColumns().size());
+
+            connection.setViewName(null);
+            connection.setPagination(STPagination.KEYSET);
+            rows = new STTableNameQuery(connection).requestData().join();
+            assertEquals(1050, rows.size());
+            assertEquals(1, rows.get(0).size());
+            assertTrue(server.getLastSql().startsWith("SELECT `col1`, `_id` FROM `table 1`"));
+        }
+    }
+
+}
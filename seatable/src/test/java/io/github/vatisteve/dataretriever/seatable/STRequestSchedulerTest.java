@@ -0,0 +1,102 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.model.connection.STRateLimit;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STRequestSchedulerTest {
+
+    private static HttpRequest columnsRequest(MockSeaTableServer server) {
+        return HttpRequest.newBuilder(URI.create(server.url() + "/api-gateway/api/v2/dtables/" + MockSeaTableServer.BASE_UUID + "/columns/")).build();
+    }
+
+    /**
+     * Body of about 1 MB, larger than the buffers of a streamed body
+     */
+    private static HttpRequest rowsRequest(MockSeaTableServer server) {
+        return HttpRequest.newBuilder(URI.create(server.url() + "/api-gateway/api/v2/dtables/" + MockSeaTableServer.BASE_UUID + "/rows/?start=0&limit=10000"))
+                .header("Authorization", "Bearer " + MockSeaTableServer.BASE_TOKEN + "-0")
+                .build();
+    }
+
+    @Test
+    @DisplayName("Retry the pages answered with 429 Too Many Requests")
+    void retryTooManyRequests() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(1000, 2)) {
+            server.throttleEvery(3);
+            STTableNameConnection connection = server.tableConnection()
+                    .parallelism(3)
+                    .build();
+            STTableNameQuery query = new STTableNameQuery(connection, 100);
+            assertEquals(1000, query.requestData().join().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Hold the in-flight slot until the streamed body is read")
+    void releaseSlotWithBody() throws Exception {
+        try (MockSeaTableServer server = new MockSeaTableServer(10000, 2);
+             HttpClient client = HttpClient.newHttpClient()) {
+            STRequestScheduler scheduler = new STRequestScheduler(STRateLimit.builder().maxInFlight(1).build());
+            HttpRequest request = rowsRequest(server);
+            HttpResponse<InputStream> first = scheduler.send(client, request, HttpResponse.BodyHandlers.ofInputStream(), "base", "token").join();
+            CompletableFuture<HttpResponse<String>> second = scheduler.send(client, request, HttpResponse.BodyHandlers.ofString(), "base", "token");
+            Thread.sleep(200);
+            assertFalse(second.isDone());
+            assertEquals(1, server.getRowRequests().get());
+            try (InputStream body = first.body()) {
+                body.readAllBytes();
+            }
+            assertEquals(200, second.get(5, TimeUnit.SECONDS).statusCode());
+            assertEquals(2, server.getRowRequests().get());
+        }
+    }
+
+    @Test
+    @DisplayName("Drop a request cancelled while waiting for a slot")
+    void cancelQueuedRequest() throws Exception {
+        try (MockSeaTableServer server = new MockSeaTableServer(10000, 2);
+             HttpClient client = HttpClient.newHttpClient()) {
+            STRequestScheduler scheduler = new STRequestScheduler(STRateLimit.builder().maxInFlight(1).build());
+            HttpRequest request = rowsRequest(server);
+            HttpResponse<InputStream> first = scheduler.send(client, request, HttpResponse.BodyHandlers.ofInputStream(), "base", "token").join();
+            CompletableFuture<HttpResponse<String>> cancelled = scheduler.send(client, request, HttpResponse.BodyHandlers.ofString(), "base", "token");
+            assertTrue(cancelled.cancel(true));
+            try (InputStream body = first.body()) {
+                body.readAllBytes();
+            }
+            HttpResponse<String> next = scheduler.send(client, request, HttpResponse.BodyHandlers.ofString(), "base", "token")
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(200, next.statusCode());
+            assertEquals(2, server.getRowRequests().get());
+        }
+    }
+
+    @Test
+    @DisplayName("Release the in-flight slot of a request failing to be sent")
+    void releaseSlotOnSendFailure() throws Exception {
+        try (MockSeaTableServer server = new MockSeaTableServer(10, 2);
+             HttpClient client = HttpClient.newHttpClient()) {
+            STRequestScheduler scheduler = new STRequestScheduler(STRateLimit.builder().maxInFlight(1).build());
+            CompletableFuture<HttpResponse<String>> failed = scheduler.send(client, null, HttpResponse.BodyHandlers.ofString(), "base", "token");
+            assertThrows(CompletionException.class, failed::join);
+            HttpResponse<String> response = scheduler.send(client, columnsRequest(server), HttpResponse.BodyHandlers.ofString(), "base", "token")
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.statusCode());
+        }
+    }
+
+}
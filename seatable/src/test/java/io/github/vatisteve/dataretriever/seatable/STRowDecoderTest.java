@@ -0,0 +1,35 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vatisteve.dataretriever.seatable.decode.STRowDecoder;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STNumber;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STRate;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STSchema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STRowDecoderTest {
+
+    @Test
+    @DisplayName("Deserialize the column settings by type and decode the rows")
+    void decodeRows() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(10, 4)) {
+            STTableNameConnection connection = server.tableConnection().build();
+            STSchema schema = new STTableNameQuery(connection).getSchema().join();
+            assertInstanceOf(STNumber.class, schema.columns().get(0).data());
+            assertNull(schema.columns().get(1).data());
+            assertEquals(new STRate(5), schema.columns().get(3).data());
+            Object[] values = new STRowDecoder(schema.columns()).decode(new ObjectMapper().readTree(MockSeaTableServer.row(7)));
+            assertEquals(new BigDecimal(7), values[0]);
+            assertEquals("value 7", values[1]);
+            assertNull(values[3]);
+        }
+    }
+
+}
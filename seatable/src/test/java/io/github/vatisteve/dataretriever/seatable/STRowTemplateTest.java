@@ -0,0 +1,31 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STRowTemplateTest {
+
+    @Test
+    @DisplayName("Fill the missing columns of SeaTable before 4.4")
+    void requestDataBefore44() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(20, 4)) {
+            STTableNameConnection connection = server.tableConnection().version(STVersion.BEFORE_4_4).build();
+            ArrayNode rows = new STTableNameQuery(connection).requestData().join();
+            assertEquals(20, rows.size());
+            List<String> fields = new ArrayList<>();
+            rows.get(5).fieldNames().forEachRemaining(fields::add);
+            assertEquals(List.of("col0", "col1", "col2", "col3"), fields);
+            assertTrue(rows.get(5).get("col3").isNull());
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STSchema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STSchemaCacheTest {
+
+    @Test
+    @DisplayName("Cache the table schema")
+    void getSchema() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(10, 3)) {
+            STTableNameConnection connection = server.tableConnection().build();
+            STSchema schema = new STTableNameQuery(connection).getSchema().join();
+            assertEquals(3, schema.columns().size());
+            assertEquals(schema.hash(), new STTableNameQuery(connection).getSchema().join().hash());
+            assertEquals(1, server.getColumnRequests().get());
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import io.github.vatisteve.dataretriever.seatable.store.STMemoryWatermarkStore;
+import io.github.vatisteve.dataretriever.seatable.store.STSnapshot;
+import io.github.vatisteve.dataretriever.seatable.store.STSnapshotStore;
+import io.github.vatisteve.dataretriever.seatable.store.STSnapshotWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STSnapshotStoreTest {
+
+    @Test
+    @DisplayName("Write a table extract without row ids, reachable only by position")
+    void writeTableExtract(@TempDir Path directory) throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(1050, 2)) {
+            STTableNameQuery query = new STTableNameQuery(server.tableConnection().build(), 100);
+            STSnapshotStore store = new STSnapshotStore(directory);
+            try (STSnapshotWriter writer = store.writer(MockSeaTableServer.BASE_UUID, "table 1", false)) {
+                assertEquals(1050, query.streamData(writer).join());
+            }
+            STSnapshot snapshot = store.open(MockSeaTableServer.BASE_UUID, "table 1").orElseThrow();
+            assertEquals(1050, snapshot.size());
+            assertNull(snapshot.id(0));
+            assertEquals(1049, snapshot.row(1049).get("col0").asInt());
+            assertTrue(snapshot.rowById(MockSeaTableServer.rowId(7)).isEmpty());
+
+            try (STSnapshotWriter writer = store.writer(MockSeaTableServer.BASE_UUID, "table 1", true)) {
+                assertEquals(1050, query.streamData(writer).join());
+            }
+            snapshot = store.open(MockSeaTableServer.BASE_UUID, "table 1").orElseThrow();
+            assertEquals(2100, snapshot.size()); // appended again, nothing to replace without _id
+            assertEquals(0, snapshot.getDeadRecords());
+
+            try (STSnapshotWriter writer = store.writer(MockSeaTableServer.BASE_UUID, "table 1", false)) {
+                assertEquals(1050, query.streamData(writer).join());
+            }
+            assertEquals(1050, store.open(MockSeaTableServer.BASE_UUID, "table 1").orElseThrow().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Replace and delete the rows by id, then compact the snapshot")
+    void deleteAndCompact(@TempDir Path directory) throws IOException {
+        STSnapshotStore store = new STSnapshotStore(directory);
+        try (STSnapshotWriter writer = store.writer("base", "Table1", false)) {
+            writer.onPage(rows("row1", "row2", "row3", "row4"));
+        }
+        try (STSnapshotWriter writer = store.writer("base", "Table1", true)) {
+            ArrayNode updated = JsonNodeFactory.instance.arrayNode();
+            updated.addObject().put("_id", "row2").put("col0", "updated");
+            writer.onPage(updated);
+            writer.delete(List.of("row3", "missing"));
+        }
+        STSnapshot snapshot = store.open("base", "Table1").orElseThrow();
+        assertEquals(3, snapshot.size());
+        assertEquals(4, snapshot.getDeadRecords()); // replaced row2, deleted row3 and the tombstones
+        assertEquals(List.of("row1", "row2", "row4"), List.of(snapshot.id(0), snapshot.id(1), snapshot.id(2)));
+        assertEquals("updated", snapshot.rowById("row2").orElseThrow().get("col0").asText());
+        assertTrue(snapshot.rowById("row3").isEmpty());
+
+        store.compact("base", "Table1");
+        snapshot = store.open("base", "Table1").orElseThrow();
+        assertEquals(3, snapshot.size());
+        assertEquals(0, snapshot.getDeadRecords());
+        assertEquals("updated", snapshot.rowById("row2").orElseThrow().get("col0").asText());
+        assertEquals("row4", snapshot.id(2));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count()); // pointer, index and a single segment of the new generation
+        }
+    }
+
+    @Test
+    @DisplayName("Serve the synced table from the local snapshot")
+    void refreshSnapshot(@TempDir Path directory) throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(12000, 2)) {
+            STTableNameConnection connection = server.tableConnection().tableName("Table1").build();
+            STSnapshotStore store = new STSnapshotStore(directory);
+            store.setSegmentSize(256 * 1024);
+            STDeltaSync deltaSync = new STDeltaSync(connection, new STMemoryWatermarkStore());
+            deltaSync.setOverlap(Duration.ZERO);
+
+            STSnapshot snapshot = store.refresh(deltaSync).join();
+            assertEquals(12000, snapshot.size());
+            assertEquals(0, snapshot.getDeadRecords());
+            assertEquals(MockSeaTableServer.rowId(0), snapshot.id(0));
+            assertEquals(11999, snapshot.row(11999).get("col0").asInt());
+
+            server.truncate(11990);
+            int sqlRequests = server.getSqlRequests().get();
+            snapshot = store.refresh(deltaSync).join();
+            assertEquals(11990, snapshot.size());
+            assertEquals(20, snapshot.getDeadRecords()); // deleted rows and their tombstones
+            assertTrue(snapshot.rowById(MockSeaTableServer.rowId(11995)).isEmpty());
+            assertEquals("value 42", snapshot.rowById(MockSeaTableServer.rowId(42)).orElseThrow().get("col1").asText());
+
+            store.compact(MockSeaTableServer.BASE_UUID, "Table1");
+            snapshot = store.open(MockSeaTableServer.BASE_UUID, "Table1").orElseThrow();
+            assertEquals(0, snapshot.getDeadRecords());
+            ArrayNode rows = JsonNodeFactory.instance.arrayNode();
+            assertEquals(11990, snapshot.scan(rows::addAll, 1000));
+            assertEquals(11990, rows.size());
+            assertEquals(11989, rows.get(11989).get("col0").asInt());
+            assertEquals(sqlRequests + 4, server.getSqlRequests().get()); // delta, count and two pages of ids of the second refresh
+        }
+    }
+
+    @Test
+    @DisplayName("Drop the index entries of an interrupted write before appending to the snapshot")
+    void recoverInterruptedWrite(@TempDir Path directory) throws IOException {
+        STSnapshotStore store = new STSnapshotStore(directory);
+        assertThrows(IllegalArgumentException.class, () -> store.setSegmentSize(1L << 31));
+        try (STSnapshotWriter writer = store.writer("base", "Table1", false)) {
+            writer.onPage(rows("row1", "row2"));
+        }
+        Path index;
+        try (Stream<Path> files = Files.list(directory)) {
+            index = files.filter(file -> file.toString().endsWith(".idx")).findFirst().orElseThrow();
+        }
+        Files.write(index, ByteBuffer.allocate(Long.BYTES).putLong(99L << 40).array(), StandardOpenOption.APPEND);
+        try (STSnapshotWriter writer = store.writer("base", "Table1", true)) {
+            writer.onPage(rows("row3"));
+        }
+        STSnapshot snapshot = store.open("base", "Table1").orElseThrow();
+        assertEquals(3, snapshot.size());
+        assertEquals("row3", snapshot.id(2));
+        assertEquals(3, Files.size(index) / Long.BYTES);
+    }
+
+    private static ArrayNode rows(String... ids) {
+        ArrayNode rows = JsonNodeFactory.instance.arrayNode();
+        for (String id : ids) {
+            rows.addObject().put("_id", id).put("col0", id);
+        }
+        return rows;
+    }
+
+}
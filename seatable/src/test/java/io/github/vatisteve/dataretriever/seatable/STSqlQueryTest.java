@@ -0,0 +1,129 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STSqlQueryConnection;
+import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
+import io.github.vatisteve.dataretriever.seatable.model.result.STColumnarResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STSqlQueryTest {
+
+    @Test
+    @DisplayName("Page the SQL results beyond the server row limit")
+    void requestDataWithAutoPaging() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(25000, 2)) {
+            STSqlQueryConnection connection = STSqlQueryConnection.builder()
+                    .url(server.url())
+                    .apiKey("mock")
+                    .version(STVersion.FROM_4_4)
+                    .query("SELECT * FROM `table 1` ORDER BY `_id` LIMIT 24000;")
+                    .autoPaging(true)
+                    .parallelism(2)
+                    .build();
+            STSqlQuery query = new STSqlQuery(connection);
+            ArrayNode rows = query.requestData().join();
+            assertEquals(24000, rows.size());
+            assertEquals(3, server.getSqlRequests().get());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(i, rows.get(i).get("col0").asInt());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Assemble the join results in the column order, as objects, positional rows or columns")
+    void requestJoinData() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(50, 2)) {
+            STSqlQueryConnection.STSqlQueryConnectionBuilder<?, ?> connection = STSqlQueryConnection.builder()
+                    .url(server.url())
+                    .apiKey("mock")
+                    .version(STVersion.FROM_4_4)
+                    .query("SELECT * FROM `table 1` JOIN `table 2` ON `table 1`.`col0` = `table 2`.`col0` LIMIT 20");
+            for (boolean metadataLast : new boolean[] {false, true}) {
+                server.joinMetadataLast(metadataLast);
+                ArrayNode rows = new STSqlQuery(connection.build()).requestData().join();
+                assertEquals(20, rows.size());
+                List<String> names = new ArrayList<>();
+                rows.get(7).fieldNames().forEachRemaining(names::add);
+                assertEquals(List.of("table 1.col0", "table 2.col1"), names);
+                assertEquals(7, rows.get(7).get("table 1.col0").asInt());
+                assertEquals("value 7", rows.get(7).get("table 2.col1").asText());
+            }
+
+            ArrayNode positional = new STSqlQuery(connection.positionalRows(true).build()).requestData().join();
+            assertEquals(20, positional.size());
+            assertTrue(positional.get(3).isArray());
+            assertEquals(3, positional.get(3).get(0).asInt());
+            assertEquals("value 3", positional.get(3).get(1).asText());
+
+            STColumnarResult columnar = new STSqlQuery(connection.positionalRows(false).build()).getColumnarData().join();
+            assertEquals(20, columnar.getRowCount());
+            assertEquals("number", columnar.getColumns().get(0).type());
+            assertEquals(19, columnar.vector("table 1.col0").get(19).asInt());
+        }
+    }
+
+    @Test
+    @DisplayName("Describe the columns of the SQL result from its metadata")
+    void getColumns() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(50, 2)) {
+            STSqlQueryConnection connection = STSqlQueryConnection.builder()
+                    .url(server.url())
+                    .apiKey("mock")
+                    .version(STVersion.FROM_4_4)
+                    .query("SELECT * FROM `table 1` JOIN `table 2` ON `table 1`.`col0` = `table 2`.`col0` LIMIT 20;")
+                    .build();
+            List<STColumn> columns = STBlockingRetriever.of(new STSqlQuery(connection)).getColumns();
+            assertEquals(List.of("table 1.col0", "table 2.col1"), columns.stream().map(STColumn::name).toList());
+            assertEquals("number", columns.get(0).type());
+            assertTrue(server.getLastSql().endsWith("`table 2`.`col0` LIMIT 1"));
+        }
+    }
+
+    @Test
+    @DisplayName("Share the cached result of the same normalized query")
+    void requestDataWithResultCache() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(500, 2)) {
+            STSqlResultCache cache = new STSqlResultCache(16L << 20);
+            List<CompletableFuture<ArrayNode>> results = new ArrayList<>();
+            for (String sql : List.of("SELECT * FROM `table 1` LIMIT 100", "SELECT  *\n FROM `table 1`   LIMIT 100;")) {
+                for (int i = 0; i < 4; i++) {
+                    STSqlQueryConnection connection = STSqlQueryConnection.builder()
+                            .url(server.url())
+                            .apiKey("mock")
+                            .version(STVersion.FROM_4_4)
+                            .query(sql)
+                            .build();
+                    results.add(new STSqlQuery(connection, cache).requestData());
+                }
+            }
+            for (CompletableFuture<ArrayNode> result : results) {
+                assertEquals(100, result.join().size());
+            }
+            assertEquals(1, server.getSqlRequests().get());
+            assertTrue(cache.getBytes() > 0);
+            results.get(0).join().removeAll();
+            assertEquals(100, results.get(1).join().size());
+
+            cache.invalidateAll();
+            STSqlQueryConnection connection = STSqlQueryConnection.builder()
+                    .url(server.url())
+                    .apiKey("mock")
+                    .version(STVersion.FROM_4_4)
+                    .query("SELECT * FROM `table 1` LIMIT 100")
+                    .build();
+            assertEquals(100, new STSqlQuery(connection, cache).requestData().join().size());
+            assertEquals(2, server.getSqlRequests().get());
+        }
+    }
+
+}
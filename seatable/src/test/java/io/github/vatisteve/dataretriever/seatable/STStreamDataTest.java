@@ -0,0 +1,49 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.github.vatisteve.dataretriever.BatchSink;
+import io.github.vatisteve.dataretriever.DataRetriever;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableNameConnection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STStreamDataTest {
+
+    @Test
+    @DisplayName("Stream the table page by page")
+    void streamData() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(1050, 2)) {
+            STTableNameConnection connection = server.tableConnection().build();
+            STTableNameQuery query = new STTableNameQuery(connection, 100);
+            List<Integer> pageSizes = new ArrayList<>();
+            long count = query.streamData(rows -> pageSizes.add(rows.size())).join();
+            assertEquals(1050, count);
+            assertEquals(11, pageSizes.size());
+            assertEquals(50, pageSizes.get(10));
+
+            DataRetriever<ArrayNode> retriever = query;
+            List<ArrayNode> batches = new ArrayList<>();
+            boolean[] completed = new boolean[1];
+            assertEquals(1050, retriever.streamData(new BatchSink<>() {
+                @Override
+                public void onBatch(ArrayNode batch) {
+                    batches.add(batch);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed[0] = true;
+                }
+            }).join());
+            assertEquals(11, batches.size());
+            assertTrue(completed[0]);
+        }
+    }
+
+}
@@ -6,6 +6,7 @@ import io.github.vatisteve.dataretriever.seatable.model.metadata.STColumn;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
@@ -22,6 +23,7 @@ class STTableNameQueryTest {
     }
 
     @Test
+    @Tag("live")
     @DisplayName("Request to get SeaTable column list")
     void getColumns() throws IOException, InterruptedException {
         STTableNameConnection connection = STTableNameConnection.builder()
@@ -40,4 +42,4 @@ class STTableNameQueryTest {
         }
     }
 
-}
\ No newline at end of file
+}
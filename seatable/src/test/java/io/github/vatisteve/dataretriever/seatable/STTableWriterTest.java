@@ -0,0 +1,73 @@
+package io.github.vatisteve.dataretriever.seatable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.vatisteve.dataretriever.seatable.enums.STVersion;
+import io.github.vatisteve.dataretriever.seatable.model.connection.STTableWriteConnection;
+import io.github.vatisteve.dataretriever.seatable.model.result.STRowResult;
+import io.github.vatisteve.dataretriever.seatable.model.result.STWriteSummary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STTableWriterTest {
+
+    @Test
+    @DisplayName("Append by batches and isolate the rejected rows")
+    void append() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(0, 2)) {
+            STTableWriter writer = new STTableWriter(connection(server));
+            Iterator<JsonNode> rows = IntStream.range(0, 2500).<JsonNode>mapToObj(i -> {
+                ObjectNode row = JsonNodeFactory.instance.objectNode().put("_id", "ignored").put("col0", i);
+                return i == 1234 ? row.put("invalid", true) : row;
+            }).iterator();
+            List<STRowResult> results = new CopyOnWriteArrayList<>();
+            STWriteSummary summary = writer.append(rows, results::add).join();
+            assertEquals(2499, summary.succeeded());
+            assertEquals(1, summary.failed());
+            assertEquals(2500, results.size());
+            STRowResult failed = results.stream().filter(r -> !r.isSuccess()).findFirst().orElseThrow();
+            assertEquals(1234, failed.index());
+            assertEquals("Invalid column", failed.error());
+            STRowResult appended = results.stream().filter(r -> r.index() == 42).findFirst().orElseThrow();
+            assertEquals("new42", appended.rowId());
+        }
+    }
+
+    @Test
+    @DisplayName("Send a failed update batch again")
+    void updateWithRetry() throws IOException, InterruptedException {
+        try (MockSeaTableServer server = new MockSeaTableServer(0, 2)) {
+            STTableWriter writer = new STTableWriter(connection(server));
+            server.failNextWrites(1);
+            Iterator<JsonNode> rows = IntStream.range(0, 1500).<JsonNode>mapToObj(i ->
+                    JsonNodeFactory.instance.objectNode().put("_id", MockSeaTableServer.rowId(i)).put("col0", -i)).iterator();
+            STWriteSummary summary = writer.update(rows, null).join();
+            assertEquals(1500, summary.succeeded());
+            assertEquals(0, summary.failed());
+            assertEquals(3, server.getWriteRequests().get());
+
+            summary = writer.delete(List.of("row000001", "row000002").iterator(), null).join();
+            assertEquals(2, summary.succeeded());
+        }
+    }
+
+    private static STTableWriteConnection connection(MockSeaTableServer server) {
+        return STTableWriteConnection.builder()
+                .url(server.url())
+                .apiKey("mock")
+                .version(STVersion.FROM_4_4)
+                .tableName("Table1")
+                .parallelism(2)
+                .build();
+    }
+
+}